@@ -0,0 +1,73 @@
+package bguspl.set;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Compares the sequential and the fork-join set finders on whole large decks (the speedup is the ratio of the
+ * average times of the two benchmarks with the same parameters).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FindSetsParallelBenchmark {
+
+    /**
+     * The number of features (the feature size is 3), i.e. decks of 243, 729 and 2187 cards.
+     */
+    @Param({"5", "6", "7"})
+    public int featureCount;
+
+    /**
+     * The maximum number of sets to find.
+     */
+    @Param({"1", "2147483647"})
+    public int count;
+
+    private UtilImpl util;
+    private List<Integer> deck;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", String.valueOf(featureCount));
+        properties.put("LogLevel", "OFF");
+        Config config = new Config(Logger.getAnonymousLogger(), properties);
+        util = new UtilImpl(config);
+        deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+        Collections.shuffle(deck, new Random(1));
+    }
+
+    @Benchmark
+    public List<int[]> sequential() {
+        return util.findSets(deck, count);
+    }
+
+    @Benchmark
+    public List<int[]> parallel() {
+        return util.findSetsParallel(deck, count);
+    }
+}
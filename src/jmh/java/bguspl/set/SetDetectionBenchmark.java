@@ -0,0 +1,105 @@
+package bguspl.set;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Measures the set detection utilities on tables of random cards, for several deck configurations.
+ * Run with: mvn -P benchmark test-compile exec:exec (add -Djmh.args="SetDetection" to run only these).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SetDetectionBenchmark {
+
+    /**
+     * The deck configuration: feature size x feature count.
+     */
+    @Param({"3x4", "3x6", "4x3"})
+    public String deck;
+
+    /**
+     * The number of cards on the table.
+     */
+    @Param({"12", "21"})
+    public int tableSize;
+
+    private UtilImpl util;
+    private List<Integer> table;
+    private int[] tableCards;
+    private int[][] candidates;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] dimensions = deck.split("x");
+        Properties properties = new Properties();
+        properties.put("FeatureSize", dimensions[0]);
+        properties.put("FeatureCount", dimensions[1]);
+        properties.put("LogLevel", "OFF");
+        Config config = new Config(Logger.getAnonymousLogger(), properties);
+        util = new UtilImpl(config);
+
+        Random random = new Random(1);
+        List<Integer> cards = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+        Collections.shuffle(cards, random);
+        table = cards.subList(0, tableSize);
+        tableCards = table.stream().mapToInt(Integer::intValue).toArray();
+
+        // a mix of legal sets and random combinations of table cards
+        List<int[]> sets = util.findSets(table, Integer.MAX_VALUE);
+        candidates = new int[1024][];
+        for (int i = 0; i < candidates.length; ++i)
+            if (i % 4 == 0 && !sets.isEmpty())
+                candidates[i] = sets.get(random.nextInt(sets.size()));
+            else
+                candidates[i] = random.ints(0, tableSize).distinct().limit(config.featureSize).map(slot -> tableCards[slot]).toArray();
+    }
+
+    private int[] nextCandidate() {
+        next = (next + 1) & (candidates.length - 1);
+        return candidates[next];
+    }
+
+    @Benchmark
+    public boolean testSet() {
+        return util.testSet(nextCandidate());
+    }
+
+    @Benchmark
+    public int[][] cardsToFeatures() {
+        return util.cardsToFeatures(nextCandidate());
+    }
+
+    @Benchmark
+    public List<int[]> findSetsFirst() {
+        return util.findSets(table, 1);
+    }
+
+    @Benchmark
+    public List<int[]> findSetsAll() {
+        return util.findSets(table, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,72 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.UtilImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Measures the time to deal a table of 12 cards that contains a set, comparing reshuffling until the dealt cards
+ * contain a set with the dealer's constructive deal (every invocation is one deal).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DealBenchmark {
+
+    private static final int TABLE_SIZE = 12;
+
+    /**
+     * The deck to deal from: the full deck, or a late game deck of 17 cards where every set includes the same card.
+     */
+    @Param({"full", "sparse"})
+    public String deckState;
+
+    private UtilImpl util;
+    private IntDeck deck;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Properties properties = new Properties();
+        properties.put("LogLevel", "OFF");
+        Config config = new Config(Logger.getAnonymousLogger(), properties);
+        util = new UtilImpl(config);
+        deck = new IntDeck(config.deckSize, new SplittableRandom(1));
+        if (deckState.equals("sparse"))
+            for (int card = 0; card < config.deckSize - 1; card++)
+                if (Integer.toString(card, 3).contains("2"))
+                    deck.remove(card);
+    }
+
+    @Benchmark
+    public int reshuffleUntilSet() {
+        do {
+            deck.shuffle();
+        } while (util.findSets(deck.cards(), TABLE_SIZE, 1).isEmpty());
+        return deck.cards()[0];
+    }
+
+    @Benchmark
+    public int constructive() {
+        Dealer.shuffleForDeal(util, deck, TABLE_SIZE);
+        return deck.cards()[0];
+    }
+}
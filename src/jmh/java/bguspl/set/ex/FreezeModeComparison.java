@@ -0,0 +1,70 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UserInterfaceDecorator;
+import bguspl.set.Util;
+import bguspl.set.UtilImpl;
+
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Compares the throughput (sets collected per minute) of stopping all the players on every collected set with the
+ * slot scoped freeze mode, on games of computer players only without a user interface.
+ * Run with: mvn -P benchmark test-compile exec:exec -Djmh.main=bguspl.set.ex.FreezeModeComparison
+ * -Djmh.args="[players] [seconds per game] [games per mode]"
+ */
+public class FreezeModeComparison {
+
+    public static void main(String[] args) throws InterruptedException {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 20;
+        int games = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        for (boolean slotScoped : new boolean[]{false, true}) {
+            double[] rates = new double[games];
+            for (int game = 0; game < games; game++)
+                rates[game] = play(players, seconds, slotScoped);
+            System.out.printf("%-12s %d players: %s sets/minute (mean %.1f)%n", slotScoped ? "slot scoped" : "stop all",
+                    players, Arrays.toString(rates), Arrays.stream(rates).average().orElse(0));
+        }
+    }
+
+    /**
+     * Plays a game for the given time and returns the number of sets collected per minute.
+     */
+    private static double play(int computers, long seconds, boolean slotScoped) throws InterruptedException {
+        Properties properties = new Properties();
+        properties.put("LogLevel", "OFF");
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", Integer.toString(computers));
+        properties.put("PointFreezeSeconds", "0");
+        properties.put("PenaltyFreezeSeconds", "0");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("SlotScopedFreeze", Boolean.toString(slotScoped));
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        Config config = new Config(logger, properties);
+        Util util = new UtilImpl(config);
+        Env env = new Env(logger, config, new UserInterfaceDecorator(logger, util, null), util);
+
+        Table table = new Table(env);
+        Player[] players = new Player[config.players];
+        Dealer dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, false);
+
+        Thread dealerThread = new Thread(dealer, "dealer");
+        long start = System.nanoTime();
+        dealerThread.start();
+        dealerThread.join(seconds * 1000);
+        int sets = Arrays.stream(players).mapToInt(Player::score).sum();
+        double minutes = (System.nanoTime() - start) / 60e9;
+        if (dealerThread.isAlive())
+            dealer.terminate();
+        dealerThread.join();
+        return Math.round(sets / minutes * 10) / 10.0;
+    }
+}
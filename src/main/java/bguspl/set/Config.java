@@ -36,6 +36,11 @@ public class Config {
      */
     public final int deckSize;
 
+    /**
+     * The directory of the precomputed third card table files (empty to compute third cards instead)
+     */
+    public final String thirdCardTableDirectory;
+
     /**
      * The number of human players in the game.
      */
@@ -81,6 +86,36 @@ public class Config {
      */
     public final long tableDelayMillis;
 
+    /**
+     * Whether collected sets are replaced while the players with no tokens on them keep playing (false stops all players)
+     */
+    public final boolean slotScopedFreeze;
+
+    /**
+     * Whether the players' and computer players' threads are virtual threads (false for platform threads)
+     */
+    public final boolean virtualThreads;
+
+    /**
+     * The strategy of the computer players: Random (random slots) or Solver (finds sets on the table)
+     */
+    public final String aiStrategy;
+
+    /**
+     * The number of milliseconds a computer player waits between key presses
+     */
+    public final long aiReactionMillis;
+
+    /**
+     * The probability that a solver computer player presses a random slot instead of a slot of a set
+     */
+    public final double aiErrorRate;
+
+    /**
+     * Whether the computer players' key presses are driven by one shared scheduler thread (false for a thread each)
+     */
+    public final boolean sharedAiScheduler;
+
     /**
      * The number of milliseconds to pause at the end of the game before closing
      */
@@ -197,6 +232,7 @@ public class Config {
         featureSize = Integer.parseInt(properties.getProperty("FeatureSize", "3"));
         featureCount = Integer.parseInt(properties.getProperty("FeatureCount", "4"));
         deckSize = (int) Math.pow(featureSize, featureCount);
+        thirdCardTableDirectory = properties.getProperty("ThirdCardTableDirectory", "").trim();
 
         // gameplay settings
         humanPlayers = Integer.parseInt(properties.getProperty("HumanPlayers", "2"));
@@ -209,6 +245,19 @@ public class Config {
         pointFreezeMillis = (long) (Double.parseDouble(properties.getProperty("PointFreezeSeconds", "1")) * 1000.0);
         penaltyFreezeMillis = (long) (Double.parseDouble(properties.getProperty("PenaltyFreezeSeconds", "3")) * 1000.0);
         tableDelayMillis = (long) (Double.parseDouble(properties.getProperty("TableDelaySeconds", "0.1")) * 1000.0);
+        slotScopedFreeze = Boolean.parseBoolean(properties.getProperty("SlotScopedFreeze", "False"));
+        virtualThreads = Boolean.parseBoolean(properties.getProperty("VirtualThreads", "False"));
+        String strategy = properties.getProperty("AiStrategy", "Random").trim();
+        if (!strategy.equalsIgnoreCase("Random") && !strategy.equalsIgnoreCase("Solver")) {
+            logger.severe("invalid computer player strategy " + strategy + ", using Random.");
+            strategy = "Random";
+        }
+        aiStrategy = strategy;
+        aiReactionMillis = (long) (Double.parseDouble(properties.getProperty("AiReactionSeconds", "0")) * 1000.0);
+        aiErrorRate = Double.parseDouble(properties.getProperty("AiErrorRate", "0"));
+        if (aiErrorRate < 0 || aiErrorRate > 1)
+            logger.severe("invalid computer player error rate: " + aiErrorRate);
+        sharedAiScheduler = Boolean.parseBoolean(properties.getProperty("SharedAiScheduler", "False"));
         endGamePauseMillies = (long) (Double.parseDouble(properties.getProperty("EndGamePauseSeconds", "5")) * 1000.0);
 
         // ui settings
@@ -0,0 +1,144 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This class runs many games at once as tasks of one executor. By default every task of a game (the dealer, the
+ * players and the AIs) runs on a virtual thread of its own, whatever the VirtualThreads setting: the tasks block while
+ * they wait (for a key press, the dealer's verdict or the end of a freeze), so on a bounded pool of platform threads
+ * each running game would hold a thread per task. On virtual threads a waiting task holds no platform thread, and all
+ * the games share the carrier threads of the virtual thread scheduler (a bounded pool, one per core by default),
+ * however many games run. A caller may pass an executor of its own instead, which must then have a thread for every
+ * task of the games running at once. The number of games running at once is bounded, and the other games wait in
+ * line.
+ */
+public class GameHost implements AutoCloseable {
+
+    /**
+     * A game run by the host.
+     */
+    public static class Game {
+        public final Table table;
+        public final Player[] players;
+        public final Dealer dealer;
+
+        private Game(Env env, GameHost host) {
+            table = new Table(env);
+            players = new Player[env.config.players];
+            dealer = new Dealer(env, table, players, host.executor);
+            for (int i = 0; i < players.length; i++)
+                players[i] = new Player(env, dealer, table, i, i < env.config.humanPlayers);
+        }
+    }
+
+    /**
+     * Runs the tasks of all the games, and the executor to shut down on close (null if the caller's).
+     */
+    private final Executor executor;
+    private final ExecutorService owned;
+
+    /**
+     * The number of games that may run at once, and the number running.
+     */
+    private final int maxGames;
+    private int running;
+
+    /**
+     * The games waiting to start, in the order they were submitted.
+     */
+    private final Queue<Runnable> pending = new ArrayDeque<>();
+
+    /**
+     * The class constructor.
+     *
+     * @param maxGames - the number of games that may run at once.
+     */
+    public GameHost(int maxGames) {
+        this.maxGames = maxGames;
+        owned = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("game-host-", 1).factory());
+        executor = owned;
+    }
+
+    /**
+     * The class constructor, for games run on the caller's executor (which the host does not shut down).
+     *
+     * @param maxGames - the number of games that may run at once.
+     * @param executor - runs the tasks of the games: needs a thread for every task of maxGames games.
+     */
+    public GameHost(int maxGames, Executor executor) {
+        this.maxGames = maxGames;
+        this.executor = executor;
+        owned = null;
+    }
+
+    /**
+     * Submits a game. The game starts when fewer than the maximum number of games are running.
+     *
+     * @param env - the game environment objects (may be shared by several games).
+     * @return - the game, completed when the game is over (exceptionally if it failed or could not start).
+     */
+    public CompletableFuture<Game> submit(Env env) {
+        CompletableFuture<Game> result = new CompletableFuture<>();
+        Runnable launch = () -> {
+            try {
+                Game game = new Game(env, this);
+                CompletableFuture.runAsync(game.dealer, executor).whenComplete((ignored, e) -> {
+                    if (e != null) //complete the game before starting the next ones
+                        result.completeExceptionally(e);
+                    else
+                        result.complete(game);
+                    release();
+                });
+            } catch (RuntimeException e) { //the game did not start: give its place back
+                result.completeExceptionally(e);
+                release();
+            }
+        };
+        synchronized (this) {
+            pending.add(launch);
+        }
+        admit();
+        return result;
+    }
+
+    private void release() {
+        synchronized (this) {
+            running--;
+        }
+        admit();
+    }
+
+    /**
+     * Starts the games waiting in line, as long as fewer than the maximum number are running.
+     */
+    private void admit() {
+        List<Runnable> launches = new ArrayList<>();
+        synchronized (this) {
+            while (!pending.isEmpty() && running < maxGames) {
+                running++;
+                launches.add(pending.poll());
+            }
+        }
+        launches.forEach(Runnable::run);
+    }
+
+    /**
+     * Shuts the host's own executor down (call once the games submitted are over).
+     */
+    @Override
+    public void close() {
+        if (owned != null)
+            owned.shutdown();
+    }
+}
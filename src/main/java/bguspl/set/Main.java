@@ -33,17 +33,22 @@ public class Main {
     /**
      * The game's main function. Creates all data structures and initializes the threads.
      *
-     * @param args - unused.
+     * @param args - none, or --simulate followed by the arguments of the headless simulation (see Simulation).
      */
     public static void main(String[] args) {
 
+        if (args.length > 0 && args[0].equals("--simulate")) {
+            Simulation.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
         mainThread = Thread.currentThread();
 
         // create the game environment objects
         logger = initLogger();
         ThreadLogger.logStart(logger, Thread.currentThread().getName());
         Config config = new Config(logger, "config.properties");
-        Util util = new UtilImpl(config);
+        Util util = new UtilImpl(config, logger);
 
         Player[] players = new Player[config.players];
         UserInterface ui = null;
@@ -0,0 +1,141 @@
+package bguspl.set;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A lazy enumeration of the legal sets in an array of cards, in the same order as Util.findSets finds them. Splitting
+ * divides the range of positions the first card of a set may take, so the sets can also be searched in parallel.
+ */
+class SetSpliterator implements Spliterator<int[]> {
+
+    private final Util util;
+    private final int setSize;
+    private final int[] cards;
+    private final int length;
+
+    /**
+     * The position of each card in cards (-1 if absent), used to look up the third card of a pair. Null when the sets
+     * are searched by testing combinations (sets that are not of 3 cards, or invalid or duplicate card ids).
+     */
+    private final int[] positions;
+
+    /**
+     * The positions of the cards of the next candidate (by third card lookup only the first two are used).
+     */
+    private final int[] combination;
+
+    /**
+     * The first card of the sets enumerated by this spliterator is in a position lower than this one.
+     */
+    private int to;
+
+    SetSpliterator(Util util, int setSize, int[] cards, int length, int[] positions, int from, int to) {
+        this.util = util;
+        this.setSize = setSize;
+        this.cards = cards;
+        this.length = length;
+        this.positions = positions;
+        this.to = to;
+        combination = new int[positions != null ? 2 : setSize];
+        for (int i = 0; i < combination.length; ++i)
+            combination[i] = from + i;
+    }
+
+    /**
+     * Maps each card to its position in cards.
+     *
+     * @return - the positions of the cards, or null if some card id is invalid or appears twice.
+     */
+    static int[] positions(int[] cards, int length, int deckSize) {
+        int[] positions = new int[deckSize];
+        Arrays.fill(positions, -1);
+        for (int i = 0; i < length; ++i) {
+            if (cards[i] < 0 || cards[i] >= deckSize || positions[cards[i]] != -1)
+                return null;
+            positions[cards[i]] = i;
+        }
+        return positions;
+    }
+
+    static int[] sorted(int a, int b, int c) {
+        if (a > b) { int t = a; a = b; b = t; }
+        if (b > c) { int t = b; b = c; c = t; }
+        if (a > b) { int t = a; a = b; b = t; }
+        return new int[]{a, b, c};
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super int[]> action) {
+        return positions != null ? advanceByThirdCard(action) : advanceByCombination(action);
+    }
+
+    private boolean advanceByThirdCard(Consumer<? super int[]> action) {
+        while (combination[0] < to && combination[1] < length - 1) {
+            int first = cards[combination[0]], second = cards[combination[1]];
+            int third = util.thirdCard(first, second);
+            boolean found = positions[third] > combination[1];
+
+            // generate the next pair in lexicographic order
+            if (++combination[1] == length - 1) {
+                combination[0]++;
+                combination[1] = combination[0] + 1;
+            }
+
+            if (found) {
+                action.accept(sorted(first, second, third));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean advanceByCombination(Consumer<? super int[]> action) {
+        int r = setSize;
+        while (combination[0] < to && combination[r - 1] < length) {
+            int[] set = new int[r];
+            for (int i = 0; i < r; ++i)
+                set[i] = cards[combination[i]];
+
+            // generate next combination in lexicographic order
+            int t = r - 1;
+            while (t != 0 && combination[t] == length - r + t) --t;
+            combination[t]++;
+            for (int i = t + 1; i < r; i++) combination[i] = combination[i - 1] + 1;
+
+            Arrays.sort(set);
+            if (util.testSet(set)) {
+                action.accept(set);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Spliterator<int[]> trySplit() {
+        int from = combination[0] + 1; // the current first card may be partially searched already
+        if (to - from < 2)
+            return null;
+
+        // the sets are ordered, so the prefix (including the current position) is handed out
+        int middle = (from + to) >>> 1;
+        SetSpliterator prefix = new SetSpliterator(util, setSize, cards, length, positions, 0, middle);
+        System.arraycopy(combination, 0, prefix.combination, 0, combination.length);
+        for (int i = 0; i < combination.length; ++i)
+            combination[i] = middle + i;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        long firsts = Math.max(0, Math.min(to, length) - combination[0]);
+        return firsts * (length - combination[0]); // the remaining candidates, roughly
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | DISTINCT | NONNULL;
+    }
+}
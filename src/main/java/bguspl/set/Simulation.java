@@ -0,0 +1,139 @@
+package bguspl.set;
+
+import bguspl.set.ex.LatencyRecorder;
+import bguspl.set.ex.PhaseTimer;
+import bguspl.set.ex.Player;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * This class runs full games of computer players only, without a user interface and without table and freeze delays,
+ * and reports their throughput (used to check dealer and player changes for performance regressions).
+ * Run with: java -jar Set_Card_Game.jar --simulate [games] [players] [concurrent games] [Key=Value ...] (the key
+ * value pairs override the configuration, e.g. SlotScopedFreeze=True or AiStrategy=Solver). The games run on a
+ * GameHost.
+ */
+public class Simulation {
+
+    /**
+     * The simulation's main function. Plays the games and prints the report.
+     *
+     * @param args - the number of games (default 10), the number of computer players (default 8), the number of games
+     *             played at once (default 1) and configuration overrides.
+     */
+    public static void main(String[] args) {
+        List<Integer> numbers = new ArrayList<>();
+        for (String arg : args)
+            if (!arg.contains("="))
+                numbers.add(Integer.parseInt(arg));
+        int games = numbers.size() > 0 ? numbers.get(0) : 10;
+        int computers = numbers.size() > 1 ? numbers.get(1) : 8;
+        int concurrent = numbers.size() > 2 ? numbers.get(2) : 1;
+
+        Properties properties = new Properties();
+        properties.put("LogLevel", "OFF");
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", Integer.toString(computers));
+        properties.put("PointFreezeSeconds", "0");
+        properties.put("PenaltyFreezeSeconds", "0");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("Hints", "False");
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            if (pair.length == 2)
+                properties.put(pair[0].trim(), pair[1].trim());
+        }
+
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        Config config = new Config(logger, properties);
+        Util util = new UtilImpl(config, logger);
+        Env env = new Env(logger, config, new NoUserInterface(), util);
+
+        LatencyRecorder claims = new LatencyRecorder();
+        PhaseTimer phases = new PhaseTimer();
+        long sets = 0;
+        long start = System.nanoTime();
+        try (GameHost host = new GameHost(concurrent)) {
+            List<CompletableFuture<GameHost.Game>> played = new ArrayList<>();
+            for (int game = 0; game < games; ++game)
+                played.add(host.submit(env));
+            for (CompletableFuture<GameHost.Game> future : played) {
+                GameHost.Game game = future.join();
+                sets += Arrays.stream(game.players).mapToInt(Player::score).sum();
+                claims.add(game.dealer.getClaimLatency());
+                phases.add(game.dealer.getPhases());
+            }
+        }
+        double seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+
+        System.out.printf("%d games of %d computer players (%d at once) in %.3f s, peak threads %d%n", games,
+                config.players, concurrent, seconds, ManagementFactory.getThreadMXBean().getPeakThreadCount());
+        System.out.printf("games per second: %.3f%n", games / seconds);
+        System.out.printf("claims per second: %.1f (%d claims)%n", claims.count() / seconds, claims.count());
+        System.out.printf("sets per second: %.1f (%d sets)%n", sets / seconds, sets);
+        System.out.println("claim to verdict latency: " + claims);
+        System.out.println("dealer phases: " + phases);
+    }
+
+    /**
+     * A user interface that shows nothing.
+     */
+    private static class NoUserInterface implements UserInterface {
+
+        @Override
+        public void placeCard(int card, int slot) {
+        }
+
+        @Override
+        public void removeCard(int slot) {
+        }
+
+        @Override
+        public void placeToken(int player, int slot) {
+        }
+
+        @Override
+        public void removeTokens() {
+        }
+
+        @Override
+        public void removeTokens(int slot) {
+        }
+
+        @Override
+        public void removeToken(int player, int slot) {
+        }
+
+        @Override
+        public void setCountdown(long millies, boolean warn) {
+        }
+
+        @Override
+        public void setElapsed(long millies) {
+        }
+
+        @Override
+        public void setFreeze(int player, long millies) {
+        }
+
+        @Override
+        public void setScore(int player, int score) {
+        }
+
+        @Override
+        public void announceWinner(int[] players) {
+        }
+
+        @Override
+        public void dispose() {
+        }
+    }
+}
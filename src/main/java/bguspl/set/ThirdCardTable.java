@@ -0,0 +1,130 @@
+package bguspl.set;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * A precomputed table of the card that completes each pair of cards to a set (for sets of 3 cards). The table is
+ * generated once per deck configuration, saved in a binary file and memory-mapped from then on.
+ * The file holds a header (magic, version, feature count, feature size) followed by one unsigned 16 bit card id for
+ * each pair first < second, at index second * (second - 1) / 2 + first.
+ */
+class ThirdCardTable {
+
+    /**
+     * The largest deck supported (3 ^ 8 cards, a 43MB table).
+     */
+    static final int MAX_CARDS = 6561;
+
+    private static final int MAGIC = 0x53455433; // "SET3"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 * Integer.BYTES;
+    private static final int WRITE_BUFFER_BYTES = 1 << 16;
+
+    private final CharBuffer thirds;
+
+    private ThirdCardTable(CharBuffer thirds) {
+        this.thirds = thirds;
+    }
+
+    /**
+     * Maps the table of the given deck configuration from its file in directory, generating the file first if it
+     * does not exist or does not match the configuration.
+     *
+     * @param directory    - the directory of the table files.
+     * @param featureCount - the number of features on the cards.
+     * @param thirdCard    - computes the card that completes two cards to a set (used to generate the table).
+     * @return - the mapped table.
+     * @throws IOException - if the table file cannot be read or written.
+     */
+    static ThirdCardTable load(Path directory, int featureCount, IntBinaryOperator thirdCard) throws IOException {
+        int deckSize = (int) Math.pow(3, featureCount);
+        if (deckSize > MAX_CARDS)
+            throw new IllegalArgumentException("third card table supports up to " + MAX_CARDS + " cards");
+
+        long size = HEADER_BYTES + (long) Character.BYTES * pairs(deckSize);
+        Path file = directory.resolve("third-cards-" + featureCount + "x3.bin");
+        if (!Files.isRegularFile(file) || Files.size(file) != size || !validHeader(file, featureCount))
+            generate(directory, file, size, deckSize, featureCount, thirdCard);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.position(HEADER_BYTES);
+            return new ThirdCardTable(buffer.slice().asCharBuffer());
+        }
+    }
+
+    private static long pairs(int cards) {
+        return (long) cards * (cards - 1) / 2;
+    }
+
+    private static boolean validHeader(Path file, int featureCount) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (header.hasRemaining())
+                if (channel.read(header) < 0) break;
+        }
+        header.flip();
+        return header.remaining() == HEADER_BYTES && header.getInt() == MAGIC && header.getInt() == VERSION
+                && header.getInt() == featureCount && header.getInt() == 3;
+    }
+
+    /**
+     * Writes the table to a temporary file and moves it in place, so a partially written table is never mapped.
+     */
+    private static void generate(Path directory, Path file, long size, int deckSize, int featureCount,
+                                 IntBinaryOperator thirdCard) throws IOException {
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_BYTES);
+                buffer.putInt(MAGIC).putInt(VERSION).putInt(featureCount).putInt(3);
+                for (int second = 1; second < deckSize; ++second)
+                    for (int first = 0; first < second; ++first) {
+                        if (buffer.remaining() < Character.BYTES)
+                            write(channel, buffer);
+                        buffer.putChar((char) thirdCard.applyAsInt(first, second));
+                    }
+                write(channel, buffer);
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Looks up the card that completes two cards to a set.
+     *
+     * @param first  - a valid card id.
+     * @param second - a valid card id.
+     * @return - the id of the card that forms a legal set with both cards.
+     */
+    int get(int first, int second) {
+        if (first == second)
+            return first;
+        if (first > second) {
+            int card = first;
+            first = second;
+            second = card;
+        }
+        return thirds.get(second * (second - 1) / 2 + first);
+    }
+}
@@ -1,6 +1,7 @@
 package bguspl.set;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * An interface for general utilities provided for convenience.
@@ -31,6 +32,15 @@ public interface Util {
      */
     boolean testSet(int[] cards);
 
+    /**
+     * Computes the card that completes two cards to a legal set (sets of 3 cards only, i.e. config.featureSize == 3).
+     *
+     * @param first  - the first card id.
+     * @param second - the second card id.
+     * @return - the id of the card that forms a legal set with both cards, or -1 if sets are not of 3 cards.
+     */
+    int thirdCard(int first, int second);
+
     /**
      * Finds and returns up to count sets in the given collection of cards.
      *
@@ -40,6 +50,46 @@ public interface Util {
      */
     List<int[]> findSets(List<Integer> deck, int count);
 
+    /**
+     * Finds and returns up to count sets in the given collection of cards, splitting the search between the threads of
+     * the common fork-join pool. When all the sets are requested they are returned in the same order as findSets,
+     * otherwise the sets returned may be any count of the sets in the collection.
+     *
+     * @param deck  - a collection of cards (may not include null objects).
+     * @param count - the maximum number of sets to find.
+     * @return - a list of up to count integer arrays, each one contains the card ids of a legal set.
+     */
+    List<int[]> findSetsParallel(List<Integer> deck, int count);
+
+    /**
+     * Finds and returns up to count sets in the first length cards of the given array.
+     *
+     * @param cards  - an array of card ids.
+     * @param length - the number of cards to search in (from the start of the array).
+     * @param count  - the maximum number of sets to find.
+     * @return - a list of up to count integer arrays, each one contains the card ids of a legal set.
+     */
+    List<int[]> findSets(int[] cards, int length, int count);
+
+    /**
+     * Lazily enumerates the sets in the first length cards of the given array, in the same order as findSets. The
+     * sets are searched only as the stream is consumed, and the stream may be made parallel. The cards must not be
+     * changed while the stream is in use.
+     *
+     * @param cards  - an array of card ids.
+     * @param length - the number of cards to search in (from the start of the array).
+     * @return - a stream of integer arrays, each one contains the card ids of a legal set.
+     */
+    Stream<int[]> streamSets(int[] cards, int length);
+
+    /**
+     * Lazily enumerates the sets in the given collection of cards (see streamSets(int[], int)).
+     *
+     * @param deck - a collection of cards (may not include null objects).
+     * @return - a stream of integer arrays, each one contains the card ids of a legal set.
+     */
+    Stream<int[]> streamSets(List<Integer> deck);
+
     /**
      * Spin a random number of times (for debugging/testing).
      */
@@ -1,27 +1,124 @@
 package bguspl.set;
 
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.stream.IntStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * The implementation of the UserInterface interface.
  */
 public class UtilImpl implements Util {
 
+    /**
+     * The number of bits each feature takes in a packed features word.
+     */
+    private static final int FEATURE_BITS = 4;
+    private static final int FEATURE_MASK = (1 << FEATURE_BITS) - 1;
+
+    /**
+     * The layout of the one-hot words used by testSet: a lane of LANE_BITS bits per feature, LANES lanes per long.
+     */
+    private static final int LANE_BITS = FEATURE_MASK + 1;
+    private static final long LANE_MASK = (1L << LANE_BITS) - 1;
+    private static final int LANES = Long.SIZE / LANE_BITS;
+
+    /**
+     * The largest deck for which the packed features table is precomputed (larger decks pack on demand).
+     */
+    private static final int MAX_TABLE_CARDS = 1 << 22;
+
+    /**
+     * findSetsParallel searches smaller decks sequentially, and splits larger ones down to ranges of this many cards.
+     */
+    private static final int MIN_PARALLEL_CARDS = 128;
+    private static final int PARALLEL_SPLIT_CARDS = 8;
+
     private final Config config;
 
+    /**
+     * True iff the features of a card fit in a single packed int.
+     */
+    private final boolean packable;
+
+    /**
+     * The packed features of each card: feature i of a card is kept in bits [FEATURE_BITS * i, FEATURE_BITS * (i + 1))
+     * (null if the features are not packable or the deck is too large).
+     */
+    private final int[] packedFeatures;
+
+    /**
+     * The precomputed third card of every pair of cards (null if not configured or not supported by the deck).
+     */
+    private final ThirdCardTable thirdCards;
+
     public UtilImpl(Config config) {
+        this(config, Logger.getLogger(UtilImpl.class.getName()));
+    }
+
+    public UtilImpl(Config config, Logger logger) {
         this.config = config;
+        packable = config.featureCount * FEATURE_BITS <= Integer.SIZE && config.featureSize <= FEATURE_MASK + 1;
+        if (packable && config.deckSize <= MAX_TABLE_CARDS) {
+            packedFeatures = new int[config.deckSize];
+            for (int card = 0; card < packedFeatures.length; ++card)
+                packedFeatures[card] = packFeatures(card);
+        } else
+            packedFeatures = null;
+        thirdCards = loadThirdCards(logger);
     }
 
-    private void cardToFeatures(int card, int[] features) {
+    private ThirdCardTable loadThirdCards(Logger logger) {
+        if (config.thirdCardTableDirectory.isEmpty() || config.featureSize != 3 || config.deckSize > ThirdCardTable.MAX_CARDS)
+            return null;
+        try {
+            return ThirdCardTable.load(Paths.get(config.thirdCardTableDirectory), config.featureCount, this::computeThirdCard);
+        } catch (IOException | InvalidPathException e) {
+            logger.severe("cannot load the third card table from " + config.thirdCardTableDirectory + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private int packFeatures(int card) {
+        int packed = 0;
         for (int i = config.featureCount - 1; i >= 0; --i) {
-            features[i] = card % config.featureSize;
+            packed |= card % config.featureSize << (FEATURE_BITS * i);
             card /= config.featureSize;
         }
+        return packed;
+    }
+
+    /**
+     * Returns the packed features of a valid card id (see packedFeatures).
+     */
+    private int packedFeatures(int card) {
+        return packedFeatures != null ? packedFeatures[card] : packFeatures(card);
+    }
+
+    private boolean isPacked(int card) {
+        return packable && card >= 0 && card < config.deckSize;
+    }
+
+    private void cardToFeatures(int card, int[] features) {
+        if (isPacked(card)) {
+            int packed = packedFeatures(card);
+            for (int i = 0; i < config.featureCount; ++i)
+                features[i] = packed >>> (FEATURE_BITS * i) & FEATURE_MASK;
+        } else
+            for (int i = config.featureCount - 1; i >= 0; --i) {
+                features[i] = card % config.featureSize;
+                card /= config.featureSize;
+            }
     }
 
     @Override
@@ -33,14 +130,52 @@ public class UtilImpl implements Util {
 
     @Override
     public int[][] cardsToFeatures(int[] cards) {
-        int[][] features = new int[cards.length][config.featureCount];
-        IntStream.range(0, cards.length).forEach(i -> cardToFeatures(cards[i], features[i]));
+        int[][] features = new int[cards.length][];
+        for (int i = 0; i < cards.length; ++i)
+            features[i] = cardToFeatures(cards[i]);
         return features;
     }
 
     @Override
     public boolean testSet(int[] cards) {
-        int[][] features = cardsToFeatures(Arrays.copyOf(cards, cards.length));
+        for (int card : cards)
+            if (!isPacked(card)) return testSetByFeatures(cards);
+        if (cards.length == 0) return config.featureCount == 0;
+        if (cards.length == 3 && thirdCards != null) return thirdCards.get(cards[0], cards[1]) == cards[2];
+
+        // one bit per feature value: features 0-3 in 16 bit lanes of low and features 4-7 in the lanes of high
+        long low = 0, high = 0;
+        for (int card : cards) {
+            int packed = packedFeatures(card);
+            low |= oneHot(packed);
+            high |= oneHot(packed >>> LANES * FEATURE_BITS);
+        }
+
+        for (int i = 0; i < config.featureCount; ++i) {
+            long lanes = i < LANES ? low : high;
+            int values = Long.bitCount(lanes >>> (LANE_BITS * (i % LANES)) & LANE_MASK);
+            // a feature is sameSame iff it has a single value and butDifferent iff no value repeats
+            if ((values == 1) == (values == cards.length)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Spreads the lowest LANES packed features into one-hot lanes (bit v of lane i is set iff feature i has value v).
+     */
+    private static long oneHot(int packed) {
+        long lanes = 0;
+        for (int i = 0; i < LANES; ++i, packed >>>= FEATURE_BITS)
+            lanes |= 1L << (LANE_BITS * i + (packed & FEATURE_MASK));
+        return lanes;
+    }
+
+    /**
+     * Checks if an array of cards forms a legal set by comparing their unpacked features (used for cards that
+     * cannot be packed).
+     */
+    boolean testSetByFeatures(int[] cards) {
+        int[][] features = cardsToFeatures(cards);
         for (int i = 0; i < config.featureCount; ++i) {
             boolean sameSame = true, butDifferent = true;
 
@@ -66,6 +201,118 @@ public class UtilImpl implements Util {
 
     @Override
     public List<int[]> findSets(List<Integer> deck, int count) {
+        if (config.featureSize == 3) {
+            List<int[]> sets = findSetsByThirdCard(deck, count);
+            if (sets != null) return sets;
+        }
+        return findSetsByCombination(deck, count);
+    }
+
+    /**
+     * Finds sets of 3 cards by computing, for every pair of cards, the only card that completes them to a set and
+     * looking it up in a bitset of the cards that come after the pair in the deck. The sets are returned in the same
+     * order as findSetsByCombination would return them.
+     *
+     * @return - the sets found, or null if the deck contains invalid or duplicate card ids.
+     */
+    private List<int[]> findSetsByThirdCard(List<Integer> deck, int count) {
+        LinkedList<int[]> sets = new LinkedList<>();
+        int n = deck.size();
+        int[] cards = new int[n];
+        long[] ahead = new long[(config.deckSize + 63) >>> 6]; // the cards placed after the current pair
+
+        for (int i = 0; i < n; ++i) {
+            int card = deck.get(i);
+            if (card < 0 || card >= config.deckSize || contains(ahead, card)) return null;
+            cards[i] = card;
+            set(ahead, card);
+        }
+
+        for (int i = 0; i < n - 2; ++i) {
+            clear(ahead, cards[i]);
+            for (int j = i + 1; j < n - 1; ++j) {
+                clear(ahead, cards[j]);
+                int third = thirdCard(cards[i], cards[j]);
+                if (contains(ahead, third)) {
+                    sets.add(SetSpliterator.sorted(cards[i], cards[j], third));
+                    if (sets.size() >= count) return sets;
+                }
+            }
+            for (int j = i + 1; j < n; ++j) // restore the cards after i for the next round
+                set(ahead, cards[j]);
+        }
+        return sets;
+    }
+
+    @Override
+    public List<int[]> findSetsParallel(List<Integer> deck, int count) {
+        int n = deck.size();
+        if (n < MIN_PARALLEL_CARDS) return findSets(deck, count);
+
+        int[] cards = deck.stream().mapToInt(Integer::intValue).toArray();
+        int[] positions = config.featureSize == 3 ? SetSpliterator.positions(cards, n, config.deckSize) : null;
+        List<int[]> sets = new ParallelSetSearch(cards, positions, count, new AtomicInteger(), 0, n).invoke();
+        return sets.size() > count ? new ArrayList<>(sets.subList(0, count)) : sets;
+    }
+
+    /**
+     * A fork-join task that searches for the sets whose first card (in deck order) is in the range [from, to).
+     * The tasks share a counter of the sets found so far and stop searching once count sets were found.
+     */
+    private class ParallelSetSearch extends RecursiveTask<List<int[]>> {
+
+        private final int[] cards;
+        private final int[] positions; // the position of each card in the deck (null for combinations search)
+        private final int count;
+        private final AtomicInteger found;
+        private final int from;
+        private final int to;
+
+        private ParallelSetSearch(int[] cards, int[] positions, int count, AtomicInteger found, int from, int to) {
+            this.cards = cards;
+            this.positions = positions;
+            this.count = count;
+            this.found = found;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<int[]> compute() {
+            if (to - from > PARALLEL_SPLIT_CARDS && found.get() < count) {
+                int middle = (from + to) >>> 1;
+                ParallelSetSearch right = new ParallelSetSearch(cards, positions, count, found, middle, to);
+                right.fork();
+                List<int[]> sets = new ParallelSetSearch(cards, positions, count, found, from, middle).compute();
+                sets.addAll(right.join());
+                return sets;
+            }
+
+            List<int[]> sets = new ArrayList<>();
+            SetSpliterator search = new SetSpliterator(UtilImpl.this, config.featureSize, cards, cards.length, positions, from, to);
+            while (found.get() < count && search.tryAdvance(sets::add))
+                found.incrementAndGet();
+            return sets;
+        }
+    }
+
+    @Override
+    public Stream<int[]> streamSets(int[] cards, int length) {
+        int[] positions = config.featureSize == 3 ? SetSpliterator.positions(cards, length, config.deckSize) : null;
+        return StreamSupport.stream(new SetSpliterator(this, config.featureSize, cards, length, positions, 0, length), false);
+    }
+
+    @Override
+    public Stream<int[]> streamSets(List<Integer> deck) {
+        return streamSets(deck.stream().mapToInt(Integer::intValue).toArray(), deck.size());
+    }
+
+    @Override
+    public List<int[]> findSets(int[] cards, int length, int count) {
+        return streamSets(cards, length).limit(count).collect(Collectors.toList());
+    }
+
+    List<int[]> findSetsByCombination(List<Integer> deck, int count) {
         LinkedList<int[]> sets = new LinkedList<>();
         int n = deck.size();
         int r = config.featureSize;
@@ -90,6 +337,36 @@ public class UtilImpl implements Util {
         return sets;
     }
 
+    @Override
+    public int thirdCard(int first, int second) {
+        if (config.featureSize != 3) return -1;
+        if (thirdCards != null) return thirdCards.get(first, second);
+        return computeThirdCard(first, second);
+    }
+
+    private int computeThirdCard(int first, int second) {
+        int third = 0;
+        for (int i = 0, weight = 1; i < config.featureCount; ++i, weight *= 3) {
+            // the third value is the same as the other two if they are equal, and the remaining value otherwise
+            third += (6 - first % 3 - second % 3) % 3 * weight;
+            first /= 3;
+            second /= 3;
+        }
+        return third;
+    }
+
+    private static boolean contains(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static void set(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    private static void clear(long[] bits, int index) {
+        bits[index >>> 6] &= ~(1L << index);
+    }
+
     public void spin() {
         if (config.randomSpinMax <= 0) return;
         long cycles = ThreadLocalRandom.current().nextLong(config.randomSpinMin, config.randomSpinMax);
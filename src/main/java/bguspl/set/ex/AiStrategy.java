@@ -0,0 +1,47 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.SplittableRandom;
+
+/**
+ * This interface is the strategy of a computer player: which slot it presses next, and how long it waits between key
+ * presses. A strategy belongs to one player, and is called by one thread at a time.
+ */
+public interface AiStrategy {
+
+    /**
+     * Returns the slot the computer player presses next.
+     *
+     * @param table  - the table.
+     * @param player - the computer player.
+     * @return - the slot, or -1 to press nothing this time.
+     */
+    int nextSlot(Table table, Player player);
+
+    /**
+     * Returns the number of milliseconds to wait after a key press (the player's reaction time).
+     *
+     * @return - the delay.
+     */
+    long delayMillis();
+
+    /**
+     * Creates the strategy of a computer player by the configuration (AiStrategy, AiReactionSeconds and AiErrorRate).
+     *
+     * @param env - the environment object.
+     * @return - a new strategy.
+     * @throws IllegalArgumentException - if the configured strategy is unknown (Config replaces unknown names).
+     */
+    static AiStrategy of(Env env) {
+        SplittableRandom random = new SplittableRandom();
+        switch (env.config.aiStrategy.toLowerCase()) {
+            case "random":
+                return new RandomStrategy(random, env.config.aiReactionMillis);
+            case "solver":
+                return new SolverStrategy(env.util, env.config.featureSize, random, env.config.aiReactionMillis, env.config.aiErrorRate);
+            default:
+                throw new IllegalArgumentException("unknown computer player strategy " + env.config.aiStrategy);
+        }
+    }
+}
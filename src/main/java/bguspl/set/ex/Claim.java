@@ -0,0 +1,37 @@
+package bguspl.set.ex;
+
+/**
+ * This class holds a player's claim that the cards under its tokens form a set.
+ * Claims are ordered by the time the third token was placed (ties are broken by player id).
+ */
+public class Claim implements Comparable<Claim> {
+
+    /**
+     * The id of the claiming player.
+     */
+    public final int player;
+
+    /**
+     * The slots of the tokens, and the cards in them when the claim was made (respectively).
+     */
+    public final int[] slots;
+    public final int[] cards;
+
+    /**
+     * The value of System.nanoTime() when the third token was placed.
+     */
+    public final long time;
+
+    public Claim(int player, int[] slots, int[] cards, long time) {
+        this.player = player;
+        this.slots = slots;
+        this.cards = cards;
+        this.time = time;
+    }
+
+    @Override
+    public int compareTo(Claim other) {
+        int order = Long.compare(time - other.time, 0); // nanoTime values are compared by their difference
+        return order != 0 ? order : Integer.compare(player, other.player);
+    }
+}
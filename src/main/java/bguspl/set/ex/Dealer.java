@@ -1,15 +1,22 @@
 package bguspl.set.ex;
 
 import bguspl.set.Env;
+import bguspl.set.Util;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.BlockingDeque;
-import java.util.concurrent.LinkedBlockingDeque;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.SplittableRandom;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * This class manages the dealer's threads and data
@@ -28,9 +35,14 @@ public class Dealer implements Runnable {
     private final Player[] players;
 
     /**
-     * The list of card ids that are left in the dealer's deck.
+     * The card ids that are left in the dealer's deck.
      */
-    private final List<Integer> deck;
+    private final IntDeck deck;
+
+    /**
+     * The legal sets left in the dealer's deck.
+     */
+    private final DeckSets deckSets;
 
     /**
      * True iff game should be terminated.
@@ -41,20 +53,73 @@ public class Dealer implements Runnable {
      * The time when the dealer needs to reshuffle the deck due to turn timeout.
      */
     private long reshuffleTime = Long.MAX_VALUE;
-    private BlockingDeque<Integer> playerToCheck;
-    private Thread[] threads; //threads for players
-    private int indexDeck; //helper for shuffle
-    private int sleepingTime; //dealer sleeping time while time loop
+
+    /**
+     * The time when the countdown display should be updated next.
+     */
+    private long nextTickTime = Long.MAX_VALUE;
+
+    /**
+     * The number of times the dealer woke up while waiting for claims or deadlines.
+     */
+    private long wakeups;
+
+    /**
+     * The time from a claim's third token until the dealer's verdict on it.
+     */
+    private final LatencyRecorder claimLatency = new LatencyRecorder();
+
+    /**
+     * The time the dealer spent in each phase of the game.
+     */
+    private final PhaseTimer phases = new PhaseTimer();
+
+    private BlockingQueue<Claim> playerToCheck; //pending claims, earliest first
+    private CompletableFuture<?>[] tasks; //tasks of the players' threads
+
+    /**
+     * The dealer waits here for claims and for the players to stop (locks rather than monitors, which the players'
+     * virtual threads would pin their carriers on).
+     */
+    private final ReentrantLock dealerLock = new ReentrantLock();
+    private final Condition claimAdded = dealerLock.newCondition();
+    private final Condition playerFinished = dealerLock.newCondition();
+
+    /**
+     * The number of player and AI threads working (not parked). The thread that parks last signals the dealer once.
+     */
+    private final AtomicInteger working = new AtomicInteger();
+
+    /**
+     * Runs the players' and AI tasks (null to start a dedicated thread, or virtual thread, for each).
+     */
+    private final Executor executor;
+
+    /**
+     * The countdown of a turn, the countdown time left when the warning starts and the warning display resolution.
+     */
+    private static final long TURN_MILLIS = 60999;
+    private static final long WARNING_MILLIS = 10000;
+    private static final long WARNING_TICK_MILLIS = 10;
 
     public Dealer(Env env, Table table, Player[] players) {
+        this(env, table, players, null);
+    }
+
+    /**
+     * Constructor for games sharing an executor.
+     *
+     * @param executor - runs the players' and AI tasks (null to start a dedicated thread, or virtual thread, for each).
+     */
+    public Dealer(Env env, Table table, Player[] players, Executor executor) {
         this.env = env;
+        this.executor = executor;
         this.table = table;
         this.players = players;
-        deck = IntStream.range(0, env.config.deckSize).boxed().collect(Collectors.toList());
-        playerToCheck = new LinkedBlockingDeque<Integer>();
-        threads = new Thread[players.length];
-        indexDeck = 0;
-        sleepingTime = 1000;
+        deck = new IntDeck(env.config.deckSize, new SplittableRandom());
+        deckSets = new DeckSets(env.util, deck.cards(), deck.size(), env.config.deckSize, env.config.featureSize);
+        playerToCheck = new PriorityBlockingQueue<Claim>();
+        tasks = new CompletableFuture<?>[players.length];
     }
 
     /**
@@ -64,37 +129,59 @@ public class Dealer implements Runnable {
     public void run() {
         env.logger.info("thread " + Thread.currentThread().getName() + " starting.");
 
-        //creating threads players
+        //starting the players (stopped until the cards are dealt)
         for (int i = 0; i < players.length; i++) {
-            threads[i] = new Thread(players[i]);
-            threads[i].start();
+            players[i].stop();
+            tasks[i] = start(players[i], "player-" + i);
         }
 
         while (!shouldFinish()) {
-            Collections.shuffle(deck);
-            indexDeck = 0;
-            if (env.util.findSets(deck, 1).size() == 0)
-                break;
+            long start = System.nanoTime();
             placeAllCardsOnTable();
+            phases.record(PhaseTimer.Phase.DEAL, start);
             updateTimerDisplay(true);
             wakePlayersUp();
             timerLoop();
+            start = System.nanoTime();
             waitingPlayersToFinish();
+            phases.record(PhaseTimer.Phase.STOP, start);
+            start = System.nanoTime();
             removeAllCardsFromTable();
+            phases.record(PhaseTimer.Phase.CLEAR, start);
         }
 
         if (!terminate)
             terminate();
+        else
+            wakePlayersUp(); //terminated by another thread: release the players this thread stopped since
 
+        table.shutdown();
         announceWinners();
+        env.logger.info("dealer woke up " + wakeups + " times while waiting.");
+        env.logger.info("claim to verdict latency: " + claimLatency);
+        env.logger.info("dealer phases: " + phases);
         env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
     }
 
+    /**
+     * Runs a task of a player on the executor, or on a dedicated thread with the given name when there is none (a
+     * virtual thread in virtual threads mode).
+     *
+     * @param task - the task.
+     * @param name - the name of the dedicated thread.
+     * @return - the completion of the task.
+     */
+    public CompletableFuture<Void> start(Runnable task, String name) {
+        if (executor != null)
+            return CompletableFuture.runAsync(task, executor);
+        if (env.config.virtualThreads)
+            return CompletableFuture.runAsync(task, command -> Thread.ofVirtual().name(name).start(command));
+        return CompletableFuture.runAsync(task, command -> new Thread(command, name).start());
+    }
+
     private void wakePlayersUp() {
-        Player.stop.set(false);
-        synchronized (Player.lock) {
-            Player.lock.notifyAll();
-        }
+        for (Player p : players)
+            p.resume();
     }
 
     private List<Integer> shuffleSlots() {
@@ -108,88 +195,156 @@ public class Dealer implements Runnable {
 
     private void placeAllCardsOnTable() {
         List<Integer> slots = shuffleSlots(); //getting the slots with random order
-        ArrayList<Integer> set = new ArrayList(); /** FOR OUT USING - TAMIR */
+        int cards = Math.min(slots.size(), deck.size());
 
-        int preIndex = indexDeck;
-        do {
-            indexDeck = preIndex;
-            Collections.shuffle(deck);
-            for (int i = 0; i < Math.min(slots.size(), deck.size()); i++) {
-
-                set.add(deck.get(indexDeck));/** FOR OUT USING - TAMIR */
-                indexDeck++; //update index deck
-            }
-        } while (env.util.findSets(set, 1).size() == 0);
-        for (int i = 0; i < Math.min(slots.size(), deck.size()); i++) {
-            table.placeCard(set.get(i), slots.get(i)); //place each card from deck in spot i
+        shuffleForDeal(env.util, deck, cards); //make sure the dealt cards contain a set
+        for (int i = 0; i < cards; i++) {
+            table.placeCard(deck.draw(), slots.get(i)); //place each card from deck in spot i
         }
     }
 
-    private synchronized void waitingPlayersToFinish() {
-        Player.stop.set(true);
-        while (!everyOneIsFinished()) {
-            try {
-                wait();
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
+    /**
+     * Shuffles the deck so that its first count cards contain a set, in bounded time: one shuffle and at most two set
+     * searches. If the shuffled prefix holds no set, a set of the whole deck (the first one in the shuffled order) is
+     * moved into random positions of the prefix, and the rest of the prefix stays random.
+     *
+     * @param util  - the set utilities.
+     * @param deck  - the deck to shuffle.
+     * @param count - the number of cards to deal.
+     * @pre - the deck contains a set.
+     */
+    static void shuffleForDeal(Util util, IntDeck deck, int count) {
+        deck.shuffle();
+        if (!util.findSets(deck.cards(), count, 1).isEmpty())
+            return;
+        List<int[]> sets = util.findSets(deck.cards(), deck.size(), 1);
+        if (!sets.isEmpty())
+            deck.moveToTop(sets.get(0), count);
+    }
+
+    private void waitingPlayersToFinish() {
+        for (Player p : players)
+            p.stop();
+        dealerLock.lock();
+        try {
+            while (!everyOneIsFinished())
+                playerFinished.await();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        } finally {
+            dealerLock.unlock();
         }
     }
 
     public boolean everyOneIsFinished() {
-        for (Player p : players) {
-            if (p.working.get())
-                return false;
-            if(!p.human &&p.AIworking.get())
-                return false;
-        }
-        return true;
+        return working.get() == 0;
     }
 
     /**
      * The inner loop of the dealer thread that runs as long as the countdown did not time out.
      */
     private void timerLoop() {
-        sleepingTime = 1000; //sleeping time for beginning
         while (!shouldFinish() && System.currentTimeMillis() < reshuffleTime) {
             sleepUntilWokenOrTimeout();
-            updateTimerDisplay(false);
-            if (playerToCheck.isEmpty())
+            if (System.currentTimeMillis() >= nextTickTime)
+                updateTimerDisplay(false);
+            List<Claim> claims = new ArrayList<>();
+            playerToCheck.drainTo(claims); //drained earliest first
+            if (!collectSets(claims))
+                continue;
+            if (!table.anySet()) //no set left on the table, deal again
+                break;
+            updateTimerDisplay(true);
+            wakePlayersUp();
+        }
+    }
+
+    /**
+     * Verifies a batch of claims in the order their third tokens were placed. A claim that shares a slot with a set
+     * accepted earlier in the batch is dropped (its tokens go away with the cards), and so is a claim on cards that
+     * are no longer in its slots. The sets accepted are all replaced at once: while all the players are stopped, or
+     * in slot scoped freeze mode, while only the slots replaced are locked and the other players keep playing.
+     *
+     * @param claims - the claims to verify, earliest first.
+     * @return - true iff at least one set was collected (unless in slot scoped freeze mode, the players are left
+     * stopped).
+     */
+    boolean collectSets(List<Claim> claims) {
+        if (claims.isEmpty())
+            return false;
+        boolean[] claimed = new boolean[env.config.tableSize]; //slots of the sets accepted so far
+        ArrayList<Claim> scorers = new ArrayList<>();
+        ArrayList<Integer> released = new ArrayList<>(); //penalized players and players with outdated claims
+        List<Integer> collected = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (Claim claim : claims) {
+            int id = claim.player;
+            if (Arrays.stream(claim.slots).anyMatch(slot -> claimed[slot]))
+                continue;
+            if (!isOnTable(claim)) {
+                released.add(id);
                 continue;
-            int id = playerToCheck.getFirst();
-            int[] setAsSlot = players[id].getSetAsSlots(); //get the set by slots
-            int[] setAsCards = players[id].getSetAsCards();//get the set by cards
-            if (!checkSet(setAsCards, id)) {
+            }
+            if (!checkSet(claim.cards, id)) {
                 players[id].penalty();
-                ArrayList<Integer> toRemove = new ArrayList<>();
-                toRemove.add(id);
-                removeFromLine(toRemove);
+                claimLatency.record(System.nanoTime() - claim.time);
+                released.add(id);
                 continue;
             }
+            scorers.add(claim);
+            for (int slot : claim.slots) {
+                claimed[slot] = true;
+                collected.add(slot);
+            }
+        }
+        removeFromLine(released);
+        phases.record(PhaseTimer.Phase.VERIFY, start);
+        if (scorers.isEmpty())
+            return false;
+
+        int[] slots = collected.stream().mapToInt(Integer::intValue).toArray();
+        if (!env.config.slotScopedFreeze) {
+            start = System.nanoTime();
             waitingPlayersToFinish();
-            players[id].point();
-            removeFromLine(playerToRemove(setAsSlot));
-            removeCardsFromTable(setAsSlot);
-            placeCardsOnTable(setAsSlot);
-            updateTimerDisplay(true);
-            wakePlayersUp();
+            phases.record(PhaseTimer.Phase.STOP, start);
+        }
+        start = System.nanoTime();
+        for (Claim claim : scorers) {
+            players[claim.player].point();
+            claimLatency.record(System.nanoTime() - claim.time);
         }
+        ArrayList<Integer> affected = playerToRemove(slots);
+        removeCardsFromTable(slots);
+        placeCardsOnTable(slots);
+        removeFromLine(affected);
+        phases.record(PhaseTimer.Phase.REPLACE, start);
+        return true;
+    }
+
+    /**
+     * Checks if the cards of a claim are still in its slots (a card may be replaced while the claim waits when the
+     * other players keep playing).
+     */
+    private boolean isOnTable(Claim claim) {
+        for (int i = 0; i < claim.slots.length; i++)
+            if (table.getCardFromSlot(claim.slots[i]) != claim.cards[i])
+                return false;
+        return true;
     }
 
     private ArrayList<Integer> playerToRemove(int[] slots) {
         return table.getPlayersFromSlots(slots); //list of players to remove
     }
 
-    public synchronized void checkSet(int playerId) {
-        players[playerId].needToSleep.set(true);
-        playerToCheck.add(playerId);
-        synchronized (playerToCheck) {
-            playerToCheck.notifyAll();
-        }
+    public void checkSet(Claim claim) {
+        players[claim.player].setWaiting(true);
+        playerToCheck.add(claim);
+        signal(claimAdded);
     }
 
     private boolean checkSet(int[] cards, int id) {
-        players[id].gotCheck = true;
+        players[id].checked();
         if (env.util.testSet(cards)) //check if set
             return true;
         else
@@ -205,11 +360,12 @@ public class Dealer implements Runnable {
             players[i].terminate();
         wakePlayersUp();
         terminate = true;
+        signal(claimAdded);
         for (int i = 0; i < players.length; i++) {
             try {
-                threads[i].join();
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
+                tasks[i].join();
+            } catch (CompletionException e) {
+                env.logger.severe("player " + i + " failed: " + e.getCause());
             }
         }
     }
@@ -220,7 +376,7 @@ public class Dealer implements Runnable {
      * @return true iff the game should be finished.
      */
     private boolean shouldFinish() {
-        return terminate || env.util.findSets(deck, 1).size() == 0;
+        return terminate || !deckSets.anySet();
     }
 
     /**
@@ -229,9 +385,9 @@ public class Dealer implements Runnable {
     private void removeCardsFromTable(int[] slots) {
         for (int i = 0; i < slots.length; i++) {
             int card = table.getCardFromSlot(slots[i]);
-            deck.remove((Object) card); //remove the cards from the deck
+            deck.remove(card); //remove the cards from the deck
+            deckSets.remove(card);
             table.removeCard(card, slots[i], players); //remove the cards from the table
-            indexDeck--; //update index deck
         }
     }
 
@@ -239,41 +395,68 @@ public class Dealer implements Runnable {
      * Check if any cards can be removed from the deck and placed on the table.
      */
     private void placeCardsOnTable(int[] slots) {
-        for (int i = 0; i < Math.min(slots.length, deck.size()); i++) {
-            if (indexDeck == deck.size())
-                break;
-            table.placeCard(deck.get(indexDeck), slots[i]); //place each card in the set slots
-            indexDeck++; //update index deck
+        for (int i = 0; i < slots.length && deck.hasNext(); i++) {
+            table.placeCard(deck.draw(), slots[i]); //place each card in the set slots
         }
     }
 
     /**
-     * Sleep for a fixed amount of time or until the thread is awakened for some purpose.
+     * Sleep until a player asks for a set check or the next deadline (display tick or reshuffle) is due.
      */
     private void sleepUntilWokenOrTimeout() {
-        synchronized (playerToCheck) {
-            try {
-                if (playerToCheck.isEmpty())
-                    playerToCheck.wait(sleepingTime);
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
+        dealerLock.lock();
+        try {
+            long timeout = Math.min(nextTickTime, reshuffleTime) - System.currentTimeMillis();
+            if (!playerToCheck.isEmpty() || timeout <= 0 || terminate)
+                return;
+            claimAdded.await(timeout, TimeUnit.MILLISECONDS);
+            wakeups++;
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        } finally {
+            dealerLock.unlock();
         }
     }
 
     /**
-     * Reset and/or update the countdown and the countdown display.
+     * Reset and/or update the countdown and the countdown display, and schedule the next display update (the display
+     * shows whole seconds, and hundredths of a second during the warning).
      */
     private void updateTimerDisplay(boolean reset) {
-        if (reset) {//check if reset
-            env.ui.setCountdown(60999, false);
-            reshuffleTime = System.currentTimeMillis() + 60999;
-        } else if (reshuffleTime - System.currentTimeMillis() > 10000) //check if the last 10 seconds
-            env.ui.setCountdown(reshuffleTime - System.currentTimeMillis(), false);
-        else {
-            env.ui.setCountdown(Math.max(reshuffleTime - System.currentTimeMillis(), 0), true);
-            sleepingTime = 5;
-        }
+        long now = System.currentTimeMillis();
+        if (reset) //check if reset
+            reshuffleTime = now + TURN_MILLIS;
+        long remaining = Math.max(reshuffleTime - now, 0);
+        boolean warn = remaining <= WARNING_MILLIS; //check if the last 10 seconds
+        env.ui.setCountdown(remaining, warn);
+        nextTickTime = now + (warn ? WARNING_TICK_MILLIS : remaining % 1000 + 1);
+    }
+
+    /**
+     * Returns the number of times the dealer thread woke up while waiting for claims or deadlines in this game.
+     *
+     * @return - the number of wakeups.
+     */
+    public long getWakeups() {
+        return wakeups;
+    }
+
+    /**
+     * Returns the latencies from the claims' third tokens until the dealer's verdicts in this game.
+     *
+     * @return - the claim latency recorder.
+     */
+    public LatencyRecorder getClaimLatency() {
+        return claimLatency;
+    }
+
+    /**
+     * Returns the time the dealer spent in each phase of this game.
+     *
+     * @return - the phase timer.
+     */
+    public PhaseTimer getPhases() {
+        return phases;
     }
 
     /**
@@ -290,9 +473,9 @@ public class Dealer implements Runnable {
     }
 
     private void removeFromLine(ArrayList<Integer> playersToRemove) {
-        playerToCheck.removeAll(playersToRemove);
+        playerToCheck.removeIf(claim -> playersToRemove.contains(claim.player));
         for (Integer id : playersToRemove) {
-            players[id].needToSleep.set(false);
+            players[id].setWaiting(false);
             players[id].wakeUp();
         }
     }
@@ -322,11 +505,29 @@ public class Dealer implements Runnable {
         env.ui.announceWinner(maxIdArray); //announce winners
     }
 
-    public synchronized void playerFinishAndWakeUpDealer() {
-        notifyAll();
+    /**
+     * Called when a player's thread, or an AI's thread, starts working or parks. The last thread to park wakes the
+     * dealer up.
+     *
+     * @param working - true iff the thread started working.
+     */
+    public void playerWorking(boolean working) {
+        if (working)
+            this.working.incrementAndGet();
+        else if (this.working.decrementAndGet() == 0)
+            signal(playerFinished);
+    }
+
+    private void signal(Condition condition) {
+        dealerLock.lock();
+        try {
+            condition.signalAll();
+        } finally {
+            dealerLock.unlock();
+        }
     }
 
-    public BlockingDeque<Integer> getPlayerToCheck(){
+    public BlockingQueue<Claim> getPlayerToCheck(){
         return playerToCheck;
     }
 }
@@ -0,0 +1,160 @@
+package bguspl.set.ex;
+
+import bguspl.set.Util;
+
+import java.util.List;
+
+/**
+ * This class keeps track of the legal sets that can still be formed from the cards left in the dealer's deck.
+ * Up to MAX_INDEXED_CARDS cards, every set of the deck is indexed by its cards, and removing a card updates the count
+ * of live sets. The number of sets grows with the square of the deck size (over 7 million for 6561 cards), so larger
+ * decks are not indexed: one live set is kept as a witness instead, and the deck is searched again (stopping at the
+ * first set) only when a card of the witness is removed.
+ *
+ * @inv 0 <= liveSets <= setCount
+ */
+public class DeckSets {
+
+    /**
+     * The largest deck whose sets are indexed.
+     */
+    public static final int MAX_INDEXED_CARDS = 729;
+
+    /**
+     * The ids of the sets (indices into liveCards) each card belongs to (null if the deck is not indexed).
+     */
+    private final int[][] cardToSets;
+
+    /**
+     * The number of cards of each set that are still in the deck (null if the deck is not indexed).
+     */
+    private final int[] liveCards;
+
+    /**
+     * The number of cards in a set.
+     */
+    private final int setSize;
+
+    /**
+     * The number of sets whose cards are all still in the deck (if the deck is indexed).
+     */
+    private int liveSets;
+
+    /**
+     * If the deck is not indexed: the utilities object, the cards still in the deck, a set of them (empty if there is
+     * none) or null if it must be searched again.
+     */
+    private final Util util;
+    private final boolean[] inDeck;
+    private int[] witness;
+    private static final int[] NO_SET = new int[0];
+
+    /**
+     * The class constructor.
+     *
+     * @param util     - the utilities object used to find the sets.
+     * @param deck     - the cards in the deck.
+     * @param length   - the number of cards in the deck (from the start of the deck array).
+     * @param deckSize - the total number of cards in the game.
+     * @param setSize  - the number of cards in a set.
+     */
+    public DeckSets(Util util, int[] deck, int length, int deckSize, int setSize) {
+        this(util, deck, length, deckSize, setSize, MAX_INDEXED_CARDS);
+    }
+
+    DeckSets(Util util, int[] deck, int length, int deckSize, int setSize, int maxIndexedCards) {
+        this.util = util;
+        this.setSize = setSize;
+        if (length > maxIndexedCards) {
+            cardToSets = null;
+            liveCards = null;
+            inDeck = new boolean[deckSize];
+            for (int i = 0; i < length; i++)
+                inDeck[deck[i]] = true;
+            return;
+        }
+        inDeck = null;
+
+        List<int[]> sets = util.findSets(deck, length, Integer.MAX_VALUE);
+        liveCards = new int[sets.size()];
+        liveSets = sets.size();
+
+        int[] setsPerCard = new int[deckSize];
+        for (int[] set : sets)
+            for (int card : set)
+                setsPerCard[card]++;
+        cardToSets = new int[deckSize][];
+        for (int card = 0; card < deckSize; ++card)
+            cardToSets[card] = new int[setsPerCard[card]];
+
+        int id = 0;
+        for (int[] set : sets) {
+            for (int card : set)
+                cardToSets[card][--setsPerCard[card]] = id;
+            liveCards[id++] = setSize;
+        }
+    }
+
+    /**
+     * Removes a card from the deck, along with all the sets it belongs to.
+     *
+     * @param card - the card removed from the deck.
+     * @post - no set containing the card is counted as live.
+     */
+    public void remove(int card) {
+        if (cardToSets == null) {
+            inDeck[card] = false;
+            if (witness != null)
+                for (int witnessCard : witness)
+                    if (witnessCard == card)
+                        witness = null; //search again when asked
+            return;
+        }
+        for (int set : cardToSets[card])
+            if (liveCards[set]-- == setSize)
+                liveSets--;
+    }
+
+    /**
+     * Checks if the deck still contains a legal set.
+     *
+     * @return - true iff all the cards of at least one set are still in the deck.
+     */
+    public boolean anySet() {
+        if (cardToSets != null)
+            return liveSets > 0;
+        if (witness == null) {
+            List<int[]> sets = util.findSets(cardsInDeck(), countInDeck(), 1);
+            witness = sets.isEmpty() ? NO_SET : sets.get(0);
+        }
+        return witness.length > 0;
+    }
+
+    /**
+     * Returns the number of legal sets left in the deck (searches the whole deck if it is not indexed).
+     *
+     * @return - the number of sets whose cards are all still in the deck.
+     */
+    public int liveSets() {
+        if (cardToSets != null)
+            return liveSets;
+        return util.findSets(cardsInDeck(), countInDeck(), Integer.MAX_VALUE).size();
+    }
+
+    private int countInDeck() {
+        int count = 0;
+        for (boolean in : inDeck)
+            if (in)
+                count++;
+        return count;
+    }
+
+    private int[] cardsInDeck() {
+        int[] cards = new int[inDeck.length];
+        int count = 0;
+        for (int card = 0; card < inDeck.length; card++)
+            if (inDeck[card])
+                cards[count++] = card;
+        return cards;
+    }
+}
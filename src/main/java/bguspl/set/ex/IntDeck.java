@@ -0,0 +1,159 @@
+package bguspl.set.ex;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * This class holds the dealer's deck of card ids as primitive ints.
+ * The cards in positions [0, drawn) were drawn (dealt to the table) and the ones in [drawn, size) are left to draw.
+ *
+ * @inv 0 <= drawn <= size <= cards.length
+ * @inv positions[cards[i]] == i for every 0 <= i < size
+ */
+public class IntDeck {
+
+    /**
+     * The card ids in the deck (only the first size entries are valid).
+     */
+    private final int[] cards;
+
+    /**
+     * The position of each card in cards (-1 if the card was removed from the deck).
+     */
+    private final int[] positions;
+
+    /**
+     * The random generator used to shuffle the deck.
+     */
+    private final SplittableRandom random;
+
+    /**
+     * The number of cards in the deck.
+     */
+    private int size;
+
+    /**
+     * The number of cards drawn since the last shuffle.
+     */
+    private int drawn;
+
+    /**
+     * The class constructor.
+     *
+     * @param deckSize - the number of cards in the deck (card ids are 0 to deckSize - 1).
+     * @param random   - the random generator to shuffle with.
+     */
+    public IntDeck(int deckSize, SplittableRandom random) {
+        this.random = random;
+        cards = new int[deckSize];
+        positions = new int[deckSize];
+        Arrays.setAll(cards, i -> i);
+        Arrays.setAll(positions, i -> i);
+        size = deckSize;
+    }
+
+    /**
+     * Shuffles all the cards in the deck (Fisher-Yates), including the drawn ones.
+     *
+     * @post - no card is drawn.
+     */
+    public void shuffle() {
+        for (int i = size - 1; i > 0; --i)
+            swap(i, random.nextInt(i + 1));
+        drawn = 0;
+    }
+
+    /**
+     * Moves the given cards to random positions among the next count cards to draw. The cards they replace are moved
+     * to the positions they left, so the rest of the deck order is kept.
+     *
+     * @param chosen - the card ids to move (distinct cards of the deck that were not drawn).
+     * @param count  - the number of cards to draw next.
+     * @pre - chosen.length <= count <= size() - drawn
+     * @post - the chosen cards are drawn by the next count draws.
+     */
+    public void moveToTop(int[] chosen, int count) {
+        for (int card : chosen) {
+            if (positions[card] < drawn + count)
+                continue;
+            int position = drawn + random.nextInt(count);
+            while (isOneOf(cards[position], chosen)) // probe for a position that holds no chosen card
+                position = position + 1 < drawn + count ? position + 1 : drawn;
+            swap(position, positions[card]);
+        }
+    }
+
+    private static boolean isOneOf(int card, int[] chosen) {
+        for (int other : chosen)
+            if (other == card)
+                return true;
+        return false;
+    }
+
+    /**
+     * @return - true iff there are cards left to draw.
+     */
+    public boolean hasNext() {
+        return drawn < size;
+    }
+
+    /**
+     * Draws the next card of the deck.
+     *
+     * @return - the drawn card id.
+     * @pre - hasNext()
+     */
+    public int draw() {
+        return cards[drawn++];
+    }
+
+    /**
+     * Removes a card from the deck in O(1), keeping the order of the drawn and the remaining cards apart.
+     *
+     * @param card - the card id to remove.
+     * @post - !contains(card)
+     */
+    public void remove(int card) {
+        int position = positions[card];
+        if (position == -1)
+            return;
+        if (position < drawn) { // keep the drawn cards before the cursor
+            swap(position, --drawn);
+            position = drawn;
+        }
+        swap(position, --size);
+        positions[card] = -1;
+    }
+
+    /**
+     * @return - true iff the card is in the deck.
+     */
+    public boolean contains(int card) {
+        return positions[card] != -1;
+    }
+
+    /**
+     * @return - the number of cards in the deck.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the array backing the deck (only the first size() entries are cards of the deck). The array is not
+     * copied, so it changes as the deck is shuffled or cards are removed.
+     *
+     * @return - the cards of the deck.
+     */
+    public int[] cards() {
+        return cards;
+    }
+
+    private void swap(int i, int j) {
+        int card = cards[i];
+        cards[i] = cards[j];
+        cards[j] = card;
+        positions[cards[i]] = i;
+        positions[cards[j]] = j;
+    }
+}
@@ -0,0 +1,146 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * This class is a bounded queue of key presses with several producers (the keyboard and the AI) and a single consumer
+ * (the player's thread). Offering and polling do not lock or allocate: the values are kept in an int array indexed by
+ * two counters, a producer takes an entry by a compare and set of the tail and publishes its value by the entry's
+ * sequence number, and a thread waiting for the other side parks and is unparked by it.
+ */
+public class KeyPressRing {
+
+    /**
+     * The value poll returns when the queue is empty (the values offered must not be negative).
+     */
+    public static final int EMPTY = -1;
+
+    private final int capacity;
+    private final int[] ring; // a power of two of at least capacity entries
+    private final int mask;
+
+    /**
+     * The sequence number of each entry: its index plus the number of values it held times the ring size when it is
+     * free for the producers, and one more when its value is published to the consumer.
+     */
+    private final AtomicLongArray sequence;
+
+    /**
+     * The number of values polled (written by the consumer) and offered (entries taken by the producers).
+     */
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * The consumer parked waiting for a value, and the producer parked waiting for room (null if none; only one
+     * producer, the AI, waits for room).
+     */
+    private volatile Thread consumer;
+    private volatile Thread producer;
+
+    /**
+     * The class constructor.
+     *
+     * @param capacity - the number of values the queue holds.
+     */
+    public KeyPressRing(int capacity) {
+        this.capacity = capacity;
+        ring = new int[Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1];
+        mask = ring.length - 1;
+        sequence = new AtomicLongArray(ring.length);
+        for (int i = 0; i < ring.length; i++)
+            sequence.set(i, i);
+    }
+
+    /**
+     * Adds a value, unless the queue is full (called by the producers).
+     *
+     * @param value - the value (not negative).
+     * @return - true iff the value was added.
+     */
+    public boolean offer(int value) {
+        long t;
+        while (true) {
+            t = tail.get();
+            if (t - head.get() >= capacity || sequence.get((int) t & mask) < t)
+                return false; //full
+            if (sequence.get((int) t & mask) == t && tail.compareAndSet(t, t + 1))
+                break; //else another producer took the entry first: try the next one
+        }
+        ring[(int) t & mask] = value;
+        sequence.set((int) t & mask, t + 1); //publish
+        Thread waiting = consumer;
+        if (waiting != null)
+            LockSupport.unpark(waiting);
+        return true;
+    }
+
+    /**
+     * Removes the oldest value (called by the consumer only).
+     *
+     * @return - the value, or EMPTY if the queue is empty.
+     */
+    public int poll() {
+        long h = head.get();
+        if (sequence.get((int) h & mask) != h + 1)
+            return EMPTY; //empty, or the value is not published yet
+        int value = ring[(int) h & mask];
+        sequence.set((int) h & mask, h + ring.length); //free for the producers of the next round
+        head.set(h + 1);
+        Thread waiting = producer;
+        if (waiting != null)
+            LockSupport.unpark(waiting);
+        return value;
+    }
+
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public boolean isFull() {
+        return size() >= capacity;
+    }
+
+    /**
+     * Parks the consumer until the queue is not empty or it is cancelled.
+     *
+     * @param cancelled - checked after every wakeup.
+     */
+    public void awaitNotEmpty(BooleanSupplier cancelled) {
+        consumer = Thread.currentThread();
+        while (isEmpty() && !cancelled.getAsBoolean())
+            LockSupport.park(this);
+        consumer = null;
+    }
+
+    /**
+     * Parks the producer until the queue is not full or it is cancelled.
+     *
+     * @param cancelled - checked after every wakeup.
+     */
+    public void awaitNotFull(BooleanSupplier cancelled) {
+        producer = Thread.currentThread();
+        while (isFull() && !cancelled.getAsBoolean())
+            LockSupport.park(this);
+        producer = null;
+    }
+
+    /**
+     * Unparks the waiting threads (to check if they were cancelled).
+     */
+    public void wakeUp() {
+        Thread waiting = consumer;
+        if (waiting != null)
+            LockSupport.unpark(waiting);
+        waiting = producer;
+        if (waiting != null)
+            LockSupport.unpark(waiting);
+    }
+}
@@ -0,0 +1,80 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class records latencies (in nanoseconds) and summarizes them. Percentiles are approximated by power of two
+ * buckets. Not thread safe: latencies are recorded by a single thread.
+ */
+public class LatencyRecorder {
+
+    private final long[] buckets = new long[Long.SIZE]; // bucket i counts latencies in [2^(i-1), 2^i)
+    private long count;
+    private long total;
+    private long max;
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos - the latency in nanoseconds.
+     */
+    public void record(long nanos) {
+        nanos = Math.max(nanos, 0);
+        buckets[Long.SIZE - Long.numberOfLeadingZeros(nanos)]++;
+        count++;
+        total += nanos;
+        max = Math.max(max, nanos);
+    }
+
+    /**
+     * Adds the latencies of another recorder to this one (to sum several games).
+     *
+     * @param other - the recorder to add.
+     */
+    public void add(LatencyRecorder other) {
+        for (int i = 0; i < buckets.length; ++i)
+            buckets[i] += other.buckets[i];
+        count += other.count;
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long meanNanos() {
+        return count == 0 ? 0 : total / count;
+    }
+
+    public long maxNanos() {
+        return max;
+    }
+
+    /**
+     * Returns an upper bound of the latency below which the given fraction of the latencies fall.
+     *
+     * @param fraction - the fraction of latencies (between 0 and 1).
+     * @return - the upper bound in nanoseconds (at most twice the actual percentile).
+     */
+    public long percentileNanos(double fraction) {
+        long rank = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; ++i) {
+            seen += buckets[i];
+            if (seen >= rank && seen > 0)
+                return Math.min(i == 0 ? 0 : (1L << i) - 1, max);
+        }
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d claims, mean %.3f ms, p50 < %.3f ms, p99 < %.3f ms, max %.3f ms", count,
+                millis(meanNanos()), millis(percentileNanos(0.5)), millis(percentileNanos(0.99)), millis(max));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
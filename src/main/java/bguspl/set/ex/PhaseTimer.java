@@ -0,0 +1,70 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class sums the time (in nanoseconds) the dealer spends in each phase of a game. Not thread safe: phases are
+ * timed by the dealer thread.
+ */
+public class PhaseTimer {
+
+    /**
+     * The phases of the dealer's work.
+     */
+    public enum Phase {
+        DEAL,       // placing all the cards on the table
+        VERIFY,     // checking the claims of the players
+        STOP,       // waiting for all the players to stop
+        REPLACE,    // replacing the cards of the sets collected
+        CLEAR       // returning all the cards from the table to the deck
+    }
+
+    private final long[] nanos = new long[Phase.values().length];
+    private final long[] counts = new long[Phase.values().length];
+
+    /**
+     * Records the time from the given start until now in a phase.
+     *
+     * @param phase - the phase.
+     * @param start - the start of the phase (from System.nanoTime).
+     */
+    public void record(Phase phase, long start) {
+        nanos[phase.ordinal()] += Math.max(System.nanoTime() - start, 0);
+        counts[phase.ordinal()]++;
+    }
+
+    /**
+     * Adds the times of another timer to this one (to sum several games).
+     *
+     * @param other - the timer to add.
+     */
+    public void add(PhaseTimer other) {
+        for (int i = 0; i < nanos.length; ++i) {
+            nanos[i] += other.nanos[i];
+            counts[i] += other.counts[i];
+        }
+    }
+
+    public long nanos(Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    public long count(Phase phase) {
+        return counts[phase.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Phase phase : Phase.values()) {
+            if (sb.length() > 0)
+                sb.append(", ");
+            sb.append(String.format("%s %.3f ms (%d times)", phase.name().toLowerCase(), millis(nanos(phase)), count(phase)));
+        }
+        return sb.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -4,10 +4,15 @@ import bguspl.set.Env;
 
 import java.util.ArrayList;
 import java.util.LinkedList;
-import java.util.Random;
-import java.util.concurrent.BlockingDeque;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * This class manages the players' threads and data
@@ -33,14 +38,27 @@ public class Player implements Runnable {
     public final int id;
 
     /**
-     * The thread representing the current player.
+     * The task of the AI (computer) player (an additional task used to generate key presses).
      */
-    private Thread playerThread;
+    private CompletableFuture<Void> aiTask;
 
     /**
-     * The thread of the AI (computer) player (an additional thread used to generate key presses).
+     * The strategy of the AI (computer) player (null for a human player).
      */
-    private Thread aiThread;
+    private final AiStrategy strategy;
+
+    /**
+     * In shared AI scheduler mode: whether the AI is driven by the shared scheduler, whether its next key press is
+     * scheduled, and the scheduled press (to cancel on termination).
+     */
+    private volatile boolean aiScheduled;
+    private final AtomicBoolean aiStepPending = new AtomicBoolean();
+    private volatile TimerWheel.Timeout aiStep;
+
+    /**
+     * Runs the key press steps of the AIs in shared AI scheduler mode (so that they do not hold up the timer wheel).
+     */
+    private static final Executor AI_STEPS = ForkJoinPool.commonPool();
 
     /**
      * True iff the player is human (not a computer player).
@@ -57,20 +75,54 @@ public class Player implements Runnable {
      */
     private int score;
     private Dealer dealer;
-    public static AtomicBoolean stop = new AtomicBoolean(true);
 
-    public AtomicBoolean working = new AtomicBoolean(false);
-    public AtomicBoolean AIworking = new AtomicBoolean(true);
+    /**
+     * The state of the player, one bit per flag in a single word, so that the flags are read and changed together:
+     * WORKING - the player's thread is working, not parked (changed only by setWorking, which keeps the dealer's count
+     * of working threads).
+     * AI_WORKING - the same for the AI's thread.
+     * WAITING - the player waits for the dealer's verdict on its claim.
+     * STOPPED - the dealer stopped the player (until resume).
+     * CHECKED - the dealer gave its verdict on the player's last claim.
+     * FROZEN - the player is frozen after a point or a penalty (cleared only when the freeze ends, not by the dealer).
+     */
+    private final AtomicInteger state = new AtomicInteger(STOPPED);
+    private static final int WORKING = 1;
+    private static final int AI_WORKING = 2;
+    private static final int WAITING = 4;
+    private static final int STOPPED = 8;
+    private static final int CHECKED = 16;
+    private static final int FROZEN = 32;
 
+    /**
+     * The locks the player's threads wait on (not monitors, so that waiting virtual threads do not pin their carriers):
+     * while stopped by the dealer, and while waiting for the dealer's verdict or frozen.
+     */
+    private final ReentrantLock stopLock = new ReentrantLock();
+    private final Condition resumed = stopLock.newCondition();
+    private final ReentrantLock sleepLock = new ReentrantLock();
+    private final Condition wokenUp = sleepLock.newCondition();
 
-    public static Object lock = new Object();
+    /**
+     * The key presses waiting for the player's thread, each a slot and the slot's version at the time of the press
+     * (see press). A press whose slot's card was replaced since is dropped when taken.
+     */
+    private final KeyPressRing actions = new KeyPressRing(3);
 
-    public AtomicBoolean needToSleep = new AtomicBoolean(false);
+    /**
+     * The timer wheel that ends the player's freezes, and the next update of the current freeze (null if none).
+     */
+    private final TimerWheel freezes = TimerWheel.shared();
+    private volatile TimerWheel.Timeout freeze;
 
-    private BlockingDeque<Integer> actions = new LinkedBlockingDeque<Integer>();
+    /**
+     * The number of freezes so far (changed by the player's thread only): an update of an earlier freeze is ignored.
+     */
+    private volatile int freezeCount;
+    private static final int SLOT_BITS = 16;
+    private static final int VERSION_MASK = 0x7fff;
 
     private ArrayList<Integer> tokens = new ArrayList<Integer>();
-    public boolean gotCheck = false;
 
     /**
      * The class constructor.
@@ -82,11 +134,26 @@ public class Player implements Runnable {
      * @param human  - true iff the player is a human player (i.e. input is provided manually, via the keyboard).
      */
     public Player(Env env, Dealer dealer, Table table, int id, boolean human) {
+        this(env, dealer, table, id, human, null);
+    }
+
+    /**
+     * The class constructor, with the strategy of a computer player.
+     *
+     * @param env      - the environment object.
+     * @param dealer   - the dealer object.
+     * @param table    - the table object.
+     * @param id       - the id of the player.
+     * @param human    - true iff the player is a human player (i.e. input is provided manually, via the keyboard).
+     * @param strategy - the strategy of the computer player (null for the configured one).
+     */
+    public Player(Env env, Dealer dealer, Table table, int id, boolean human, AiStrategy strategy) {
         this.env = env;
         this.table = table;
         this.id = id;
         this.human = human;
         this.dealer = dealer;
+        this.strategy = strategy == null && !human ? AiStrategy.of(env) : strategy; //before any thread starts
     }
 
     /**
@@ -94,7 +161,6 @@ public class Player implements Runnable {
      */
     @Override
     public void run() {
-        playerThread = Thread.currentThread();
         waitingOnStaticLock(false);
         env.logger.info("thread " + Thread.currentThread().getName() + " starting.");
         if (!human) createArtificialIntelligence();
@@ -102,95 +168,192 @@ public class Player implements Runnable {
         while (!terminate) {
             waitingOnActionsLock();
             waitingOnStaticLock(false);
-            if (actions.size() > 0)
-                makeAction(actions.removeFirst());
+            int press = actions.poll();
+            if (press != KeyPressRing.EMPTY) {
+                kickAi(); //there is room for another key press
+                makeAction(press & ((1 << SLOT_BITS) - 1), press >>> SLOT_BITS);
+            }
         }
         if (!human) try {
-            aiThread.join();
-        } catch (InterruptedException ignored) {
+            aiTask.join();
+        } catch (CompletionException ignored) {
         }
-        working.set(false);
+        setWorking(false, false);
         env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
     }
 
     public void waitingOnStaticLock(boolean ai) {
-        synchronized (lock) {
-            while (stop.get()) {
-                try {
-                    if (!ai)
-                        working.set(false);
-                    else
-                        AIworking.set(false);
-                    dealer.playerFinishAndWakeUpDealer();
-                    lock.wait();
-                } catch (InterruptedException e) {
-                    throw new RuntimeException(e);
-                }
+        stopLock.lock();
+        try {
+            while (is(STOPPED)) {
+                setWorking(ai, false);
+                resumed.await();
             }
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        } finally {
+            stopLock.unlock();
         }
-        if (!ai)
-            working.set(true);
-        else
-            AIworking.set(true);
+        setWorking(ai, true);
+    }
+
+    /**
+     * Marks the player's thread, or the AI's thread, as working or parked, and tells the dealer when it changes.
+     *
+     * @param ai      - true for the AI's thread.
+     * @param working - true iff the thread is working.
+     */
+    void setWorking(boolean ai, boolean working) {
+        if (set(ai ? AI_WORKING : WORKING, working))
+            dealer.playerWorking(working);
+    }
+
+    private boolean is(int flag) {
+        return (state.get() & flag) != 0;
+    }
+
+    /**
+     * Sets or clears a flag of the state.
+     *
+     * @return - true iff the flag changed.
+     */
+    private boolean set(int flag, boolean on) {
+        int previous = on ? state.getAndUpdate(s -> s | flag) : state.getAndUpdate(s -> s & ~flag);
+        return ((previous & flag) != 0) != on;
+    }
+
+    /**
+     * Stops the player's threads (they park at their next stop check, until resume).
+     */
+    public void stop() {
+        set(STOPPED, true);
+    }
+
+    /**
+     * Sets whether the player waits for the dealer's verdict: its key presses are ignored meanwhile.
+     */
+    public void setWaiting(boolean waiting) {
+        set(WAITING, waiting);
+    }
+
+    public boolean isWaiting() {
+        return is(WAITING);
+    }
+
+    /**
+     * Called by the dealer when it gives its verdict on the player's claim.
+     */
+    public void checked() {
+        set(CHECKED, true);
+    }
+
+    /**
+     * Lets the player's threads play again after the dealer stopped them.
+     */
+    public void resume() {
+        set(STOPPED, false);
+        stopLock.lock();
+        try {
+            resumed.signalAll();
+        } finally {
+            stopLock.unlock();
+        }
+        kickAi();
     }
 
     public void waitingOnActionsLock() {
-        synchronized (actions) {
-            while (actions.isEmpty() & !terminate) {
-                try {
-                    working.set(false);
-                    dealer.playerFinishAndWakeUpDealer();
-                    actions.wait();
-                } catch (InterruptedException e) {
-                }
-            }
-            working.set(true);
+        if (actions.isEmpty() & !terminate) {
+            setWorking(false, false);
+            actions.awaitNotEmpty(() -> terminate);
+        }
+        setWorking(false, true);
+    }
 
+    /**
+     * Waits while the queue of key presses is full (so that the AI does not spin, which would hold a virtual thread's
+     * carrier).
+     */
+    private void waitingOnActionsRoom() {
+        if (actions.isFull() & !terminate) {
+            setWorking(true, false);
+            actions.awaitNotFull(() -> terminate);
         }
+        setWorking(true, true);
     }
 
     public boolean removingSlot(int slot) { //return true if tokens contain the slot
-        return tokens.contains(slot);
+        synchronized (tokens) {
+            return tokens.contains(slot);
+        }
     }
 
     private void removeAction(int slot) { //remove the slot from tokens and from table
-        removeToken(slot);
-        table.removeToken(id, slot);
+        ReentrantLock slotLock = table.getSlotLock(slot);
+        slotLock.lock();
+        try {
+            removeToken(slot);
+            table.removeToken(id, slot);
+        } finally {
+            slotLock.unlock();
+        }
     }
 
     public boolean placeAction(int slot) { //check if we alerday have 3 tokens, if not ad to the table and to tokens
-        if (tokens.size() >= 3) //if trying to place more than 3 token return
-            return false;
-        if (table.getCardFromSlot(slot) == -1)
-            return false;
-        //place token
-        addToken(slot);
-        table.placeToken(id, slot);
-        return true;
+        return placeAction(slot, table.getSlotVersion(slot));
     }
 
-    public void removeToken(int slot) { //Rremove action from tokens
-        tokens.remove((Object) slot);
+    private boolean placeAction(int slot, int version) { //place only on the card the key was pressed for
+        ReentrantLock slotLock = table.getSlotLock(slot);
+        slotLock.lock(); //the card can not be replaced while placing the token
+        try {
+            if ((table.getSlotVersion(slot) & VERSION_MASK) != (version & VERSION_MASK)) //the card was replaced since
+                return false;
+            if (tokenCount() >= 3) //if trying to place more than 3 token return
+                return false;
+            if (table.getCardFromSlot(slot) == -1)
+                return false;
+            //place token
+            addToken(slot);
+            table.placeToken(id, slot);
+            return true;
+        } finally {
+            slotLock.unlock();
+        }
+    }
 
+    public void removeToken(int slot) { //Rremove action from tokens
+        synchronized (tokens) {
+            tokens.remove((Object) slot);
+        }
     }
 
     public void addToken(int slot) {
+        synchronized (tokens) {
             tokens.add(slot);
+        }
     }
 
-    private void makeAction(int slot) {
+    private int tokenCount() {
+        synchronized (tokens) {
+            return tokens.size();
+        }
+    }
+
+    private void makeAction(int slot, int version) {
+        if (version != (table.getSlotVersion(slot) & VERSION_MASK)) //the card was replaced since the key press
+            return;
         if (removingSlot(slot)) {
             removeAction(slot);
         } else {
-            if (!placeAction(slot))
+            if (!placeAction(slot, version))
                 return;
-            if (tokens.size() == 3) {
+            if (tokenCount() == 3) {
                 int prevScore = score;
-                gotCheck = false;
+                set(CHECKED, false);
                 ThirdToken();
                 if (terminate)
                     return;
-                if (!gotCheck)
+                if (!is(CHECKED))
                     return;
                 boolean gotPoint = (score == prevScore + 1); //point or penalty
                 sleepForTime(gotPoint);
@@ -201,81 +364,165 @@ public class Player implements Runnable {
     }
 
     private void ThirdToken() {
-        dealer.checkSet(id); //ask from dealer to check and wait
+        long time = System.nanoTime(); //claims are ordered by the time of the third token
+        Claim claim;
+        synchronized (tokens) {
+            if (tokens.size() < 3) //a token was removed with its card by the dealer
+                return;
+            claim = new Claim(id, getSetAsSlots(), getSetAsCards(), time);
+        }
+        dealer.checkSet(claim); //ask from dealer to check and wait
         waitingOnPlayerLock(false);
     }
 
-    public synchronized void waitingOnPlayerLock(boolean ai) {
-        while (needToSleep.get() == true & !terminate) {
-            try {
-                if (!ai)
-                    working.set(false);
-                else
-                    AIworking.set(false);
-                dealer.playerFinishAndWakeUpDealer();
-                wait();
-            } catch (InterruptedException e) {
+    public void waitingOnPlayerLock(boolean ai) {
+        sleepLock.lock();
+        try {
+            while ((state.get() & (WAITING | FROZEN)) != 0 & !terminate) {
+                try {
+                    setWorking(ai, false);
+                    wokenUp.await();
+                } catch (InterruptedException e) {
+                }
             }
+        } finally {
+            sleepLock.unlock();
         }
-        if (!ai)
-            working.set(true);
-        else
-            AIworking.set(true);
+        setWorking(ai, true);
     }
 
+    /**
+     * Freezes the player after the dealer's verdict: the timer wheel counts the freeze down and ends it, and the
+     * player's thread waits (parked, not sleeping) until then.
+     *
+     * @param gotPoint - true for a point freeze, false for a penalty freeze.
+     */
     public void sleepForTime(boolean gotPoint) {
-        int timeToSleep;
-        needToSleep.set(true);
-        working.set(false);
-        //update time to sleep
-        if (gotPoint)
-            timeToSleep = ((int) env.config.pointFreezeMillis / 1000);
-        else
-            timeToSleep = ((int) env.config.penaltyFreezeMillis / 1000);
-        //every second update the timer
-        for (int i = timeToSleep; i >= 0; i--) {
-            env.ui.setFreeze(id, i * 1000);
-            try {
-                playerThread.sleep(1000);
-            } catch (InterruptedException e) {
-            }
+        long millis = gotPoint ? env.config.pointFreezeMillis : env.config.penaltyFreezeMillis;
+        TimerWheel.Timeout previous = freeze;
+        if (previous != null)
+            previous.cancel();
+        int count = ++freezeCount;
+        set(FROZEN, true);
+        showFreeze(System.currentTimeMillis() + millis, count);
+        waitingOnPlayerLock(false);
+    }
+
+    /**
+     * Shows the time left of the freeze, and schedules the next update on the timer wheel: at the next whole second
+     * left, or at the end of the freeze, when it shows 0 and lets the player play again.
+     *
+     * @param deadline - the end of the freeze.
+     * @param count    - the number of the freeze.
+     */
+    private void showFreeze(long deadline, int count) {
+        if (count != freezeCount) //an update of an earlier freeze
+            return;
+        long now = System.currentTimeMillis();
+        long remaining = deadline - now;
+        if (remaining <= 0 || terminate) {
+            env.ui.setFreeze(id, 0);
+            set(FROZEN, false);
+            wakeUp();
+            return;
         }
-        working.set(true);
-        needToSleep.set(false);
+        env.ui.setFreeze(id, (remaining + 999) / 1000 * 1000); //the display shows whole seconds: round up
+        long next = remaining % 1000 == 0 ? 1000 : remaining % 1000;
+        freeze = freezes.schedule(() -> showFreeze(deadline, count), now + next);
     }
 
 
     /**
      * Creates an additional thread for an AI (computer) player. The main loop of this thread repeatedly generates
-     * key presses. If the queue of key presses is full, the thread waits until it is not full.
+     * key presses by the player's strategy. If the queue of key presses is full, the thread waits until it is not
+     * full. In shared AI scheduler mode there is no additional thread: the key presses are scheduled on the shared
+     * timer wheel instead (see aiStep).
      */
-
-    private int getNumberforAI() {
-        ArrayList<Integer> slots = table.getSlotsWithCards();
-        if (slots.size() == 0)
-            return 0;
-        //random slot
-        Random rand = new Random();
-        int randomNumber = rand.nextInt(slots.size());
-        randomNumber = slots.get(randomNumber);
-        return randomNumber;
-    }
-
     private void createArtificialIntelligence() {
-        // note: this is a very, very smart AI (!)
-        aiThread = new Thread(() -> {
+        if (env.config.sharedAiScheduler) {
+            aiTask = CompletableFuture.completedFuture(null);
+            aiScheduled = true;
+            kickAi();
+            return;
+        }
+        setWorking(true, true); //counted from now (while this thread works), so the dealer never misses it
+        aiTask = dealer.start(() -> {
             env.logger.info("thread " + Thread.currentThread().getName() + " starting.");
             while (!terminate) {
-                int randomNumber = getNumberforAI();
-                keyPressed(randomNumber); //press
+                int slot = strategy.nextSlot(table, this);
+                if (slot != -1)
+                    keyPressed(slot); //press
+                waitingOnReaction(strategy.delayMillis());
+                waitingOnActionsRoom();
                 waitingOnPlayerLock(true);
                 waitingOnStaticLock(true);
-
             }
-            AIworking.set(false);
+            setWorking(true, false);
             env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
         }, "computer-" + id);
-        aiThread.start();
+    }
+
+    /**
+     * Waits for the AI's reaction time after a key press (not counted as working by the dealer).
+     *
+     * @param millis - the reaction time.
+     */
+    private void waitingOnReaction(long millis) {
+        if (millis <= 0)
+            return;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        setWorking(true, false);
+        sleepLock.lock();
+        try {
+            for (long left = deadline - System.nanoTime(); left > 0 & !terminate; left = deadline - System.nanoTime())
+                wokenUp.awaitNanos(left);
+        } catch (InterruptedException ignored) {
+        } finally {
+            sleepLock.unlock();
+        }
+        setWorking(true, true);
+    }
+
+    /**
+     * Schedules the AI's next key press, unless one is scheduled already (called whenever the AI may press again: on
+     * start, resume, the end of a wait for the dealer and room in the queue). The shared timer wheel only waits for
+     * the reaction time: the step itself (which may search the table for a set) runs on the AI_STEPS pool.
+     */
+    private void kickAi() {
+        kickAi(0);
+    }
+
+    private void kickAi(long delayMillis) {
+        if (!aiScheduled || terminate || !aiStepPending.compareAndSet(false, true))
+            return;
+        if (delayMillis <= 0)
+            AI_STEPS.execute(this::aiStep);
+        else
+            aiStep = freezes.schedule(() -> AI_STEPS.execute(this::aiStep), System.currentTimeMillis() + delayMillis);
+    }
+
+    /**
+     * A key press of the AI in shared AI scheduler mode. While the player is stopped or frozen, waits for the dealer,
+     * or its queue is full, nothing is scheduled: the player kicks the AI again when that ends. One step at a time
+     * runs, so the strategy is never called by two threads at once.
+     */
+    private void aiStep() {
+        boolean pressed = false;
+        if (!terminate && canAiPress()) {
+            int slot = strategy.nextSlot(table, this);
+            if (slot != -1)
+                keyPressed(slot);
+            pressed = true;
+        }
+        aiStepPending.set(false);
+        if (pressed)
+            kickAi(strategy.delayMillis());
+        else if (canAiPress())
+            kickAi(); //a kick made while this step ran was dropped
+    }
+
+    private boolean canAiPress() {
+        return (state.get() & (STOPPED | WAITING | FROZEN)) == 0 && !actions.isFull();
     }
 
     /**
@@ -283,28 +530,33 @@ public class Player implements Runnable {
      */
     public void terminate() {
         terminate = true;
-        synchronized (actions) {
-            actions.notifyAll();
-        }
-        synchronized (this) {
-            notifyAll();
-        }
+        TimerWheel.Timeout pending = freeze;
+        if (pending != null)
+            pending.cancel();
+        pending = aiStep;
+        if (pending != null)
+            pending.cancel();
+        actions.wakeUp();
+        wakeUp();
     }
 
     /**
-     * This method is called when a key is pressed.
+     * This method is called when a key is pressed. It does not block or allocate: the press is dropped if three are
+     * waiting already.
      *
      * @param slot - the slot corresponding to the key pressed.
      */
     public void keyPressed(int slot) {
-        if (stop.get() || needToSleep.get() || table.getCardFromSlot(slot) == -1)
+        if ((state.get() & (STOPPED | WAITING | FROZEN)) != 0 || table.getCardFromSlot(slot) == -1)
             return;
-        synchronized (actions) {
-            if (actions.size() < 3) {
-                actions.add(slot); // add the action
-                actions.notifyAll(); //wake the player up from waiting to action
-            }
-        }
+        actions.offer(press(slot, table.getSlotVersion(slot))); // add the action (wakes the player up)
+    }
+
+    /**
+     * Packs a key press: the slot in the low bits, and the version of the slot in the bits above.
+     */
+    private static int press(int slot, int version) {
+        return slot | (version & VERSION_MASK) << SLOT_BITS;
     }
 
     /**
@@ -329,29 +581,35 @@ public class Player implements Runnable {
         return score;
     }
 
-    public synchronized void wakeUp() {
-        notifyAll();
+    public void wakeUp() {
+        sleepLock.lock();
+        try {
+            wokenUp.signalAll();
+        } finally {
+            sleepLock.unlock();
+        }
+        kickAi();
     }
 
     public int[] getSetAsSlots() {
         int[] ans = new int[3];
-        for (int i = 0; i < tokens.size(); i++) {
-            ans[i] = tokens.get(i);
+        synchronized (tokens) {
+            for (int i = 0; i < tokens.size(); i++) {
+                ans[i] = tokens.get(i);
+            }
         }
         return ans;
     }
 
     public int[] getSetAsCards() {
         int[] ans = new int[3];
-        for (int i = 0; i < tokens.size(); i++)
-            ans[i] = table.getCardFromSlot(tokens.get(i));
+        synchronized (tokens) {
+            for (int i = 0; i < tokens.size(); i++)
+                ans[i] = table.getCardFromSlot(tokens.get(i));
+        }
         return ans;
     }
 
-    public void removeFromActionBlock(int slot) {
-        if (actions.contains(slot))
-            actions.remove((Object) slot);
-    }
     public ArrayList<Integer> getTokens(){
         return tokens;
     }
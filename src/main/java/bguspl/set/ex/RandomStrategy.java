@@ -0,0 +1,44 @@
+package bguspl.set.ex;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+
+/**
+ * This class is the strategy of a computer player that presses random slots with cards.
+ */
+public class RandomStrategy implements AiStrategy {
+
+    private final SplittableRandom random;
+    private final long delayMillis;
+
+    /**
+     * The class constructor.
+     *
+     * @param random      - the source of the random slots.
+     * @param delayMillis - the number of milliseconds to wait after a key press.
+     */
+    public RandomStrategy(SplittableRandom random, long delayMillis) {
+        this.random = random;
+        this.delayMillis = delayMillis;
+    }
+
+    @Override
+    public int nextSlot(Table table, Player player) {
+        return randomSlot(table, random);
+    }
+
+    @Override
+    public long delayMillis() {
+        return delayMillis;
+    }
+
+    /**
+     * Returns a random slot with a card, or -1 if the table is empty.
+     */
+    static int randomSlot(Table table, SplittableRandom random) {
+        ArrayList<Integer> slots = table.getSlotsWithCards();
+        if (slots.size() == 0)
+            return -1;
+        return slots.get(random.nextInt(slots.size()));
+    }
+}
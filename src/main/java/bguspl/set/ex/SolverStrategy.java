@@ -0,0 +1,116 @@
+package bguspl.set.ex;
+
+import bguspl.set.Util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * This class is the strategy of a computer player that finds a set on a snapshot of the table and presses its slots
+ * (first removing its tokens that are not on the set). With the error rate probability it presses a random slot
+ * instead, so claims can be a realistic mix of sets and mistakes.
+ */
+public class SolverStrategy implements AiStrategy {
+
+    private final Util util;
+    private final SplittableRandom random;
+    private final long delayMillis;
+    private final double errorRate;
+
+    /**
+     * The key presses planned for the set found last, and the next one to press.
+     */
+    private final int[] plan;
+    private int planned;
+    private int next;
+
+    /**
+     * The slots and the cards of the set found last (the plan is dropped once one of the cards is replaced).
+     */
+    private final int[] setSlots;
+    private final int[] setCards;
+
+    /**
+     * The class constructor.
+     *
+     * @param util        - the set utilities.
+     * @param setSize     - the number of cards in a set.
+     * @param random      - the source of the mistakes.
+     * @param delayMillis - the number of milliseconds to wait after a key press.
+     * @param errorRate   - the probability of pressing a random slot.
+     */
+    public SolverStrategy(Util util, int setSize, SplittableRandom random, long delayMillis, double errorRate) {
+        this.util = util;
+        plan = new int[2 * setSize]; //removing the tokens not on the set, then placing the set's
+        setSlots = new int[setSize];
+        setCards = new int[setSize];
+        this.random = random;
+        this.delayMillis = delayMillis;
+        this.errorRate = errorRate;
+    }
+
+    @Override
+    public int nextSlot(Table table, Player player) {
+        if (random.nextDouble() < errorRate)
+            return RandomStrategy.randomSlot(table, random);
+        if ((next == planned || !onTable(table)) && !plan(table, player))
+            return RandomStrategy.randomSlot(table, random); //no set on the table (the dealer deals again soon)
+        return next < planned ? plan[next++] : -1;
+    }
+
+    @Override
+    public long delayMillis() {
+        return delayMillis;
+    }
+
+    /**
+     * Checks if the cards of the set found last are still in their slots.
+     */
+    private boolean onTable(Table table) {
+        for (int i = 0; i < setSlots.length; i++)
+            if (table.getCardFromSlot(setSlots[i]) != setCards[i])
+                return false;
+        return true;
+    }
+
+    /**
+     * Plans the key presses for the first set on the table.
+     *
+     * @return - true iff a set was found (there may be nothing to press if the player's tokens are on it already).
+     */
+    private boolean plan(Table table, Player player) {
+        planned = next = 0;
+        ArrayList<Integer> slots = table.getSlotsWithCards();
+        int[] cards = new int[slots.size()];
+        int[] cardSlots = new int[slots.size()];
+        int count = 0;
+        for (int slot : slots) {
+            int card = table.getCardFromSlot(slot);
+            if (card != -1) { //the dealer may be replacing it
+                cards[count] = card;
+                cardSlots[count++] = slot;
+            }
+        }
+        List<int[]> sets = util.findSets(cards, count, 1);
+        if (sets.isEmpty())
+            return false;
+
+        boolean[] target = new boolean[count];
+        int[] set = sets.get(0);
+        for (int j = 0; j < set.length; j++)
+            for (int i = 0; i < count; i++)
+                if (cards[i] == set[j]) {
+                    target[i] = true;
+                    setSlots[j] = cardSlots[i];
+                    setCards[j] = cards[i];
+                }
+        for (int i = 0; i < count; i++) //remove the tokens that are not on the set
+            if (!target[i] && table.hasToken(player.id, cardSlots[i]))
+                plan[planned++] = cardSlots[i];
+        for (int i = 0; i < count; i++) //then place the missing ones
+            if (target[i] && !table.hasToken(player.id, cardSlots[i]))
+                plan[planned++] = cardSlots[i];
+        return true;
+    }
+}
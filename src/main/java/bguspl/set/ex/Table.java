@@ -5,7 +5,9 @@ import bguspl.set.Env;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 /**
@@ -30,7 +32,34 @@ public class Table {
      */
     protected final Integer[] cardToSlot; // slot per card (if any)
 
-    private int[][] slotToToken;
+    /**
+     * The players with a token on each slot, as a bitset of tokenWords words per slot (bit p of the slot's words is set
+     * iff player p has a token on the slot). Changed while holding the slot's lock, and can be read without it.
+     */
+    private final AtomicLongArray slotToTokens;
+    private final int tokenWords;
+
+    /**
+     * The version of each slot, incremented whenever its card is removed (so that key presses made for the card can
+     * be told apart from presses for the next one, without touching the players).
+     */
+    private final AtomicIntegerArray slotVersions;
+
+    /**
+     * The locks of the slots: a card is placed or removed, and a token is placed or removed, only while holding the
+     * lock of its slot.
+     */
+    private final ReentrantLock[] slotLocks;
+
+    /**
+     * Applies the user interface updates of the table, paced by the table delay.
+     */
+    private final TableAnimator animator;
+
+    /**
+     * The number of legal sets among the cards currently on the table (kept up to date by placeCard and removeCard).
+     */
+    private volatile int setCount;
 
     /**
      * Constructor for testing.
@@ -44,7 +73,12 @@ public class Table {
         this.env = env;
         this.slotToCard = slotToCard;
         this.cardToSlot = cardToSlot;
-        slotToToken = new int[slotToCard.length][env.config.players];
+        tokenWords = (env.config.players + Long.SIZE - 1) / Long.SIZE;
+        slotToTokens = new AtomicLongArray(slotToCard.length * tokenWords);
+        slotVersions = new AtomicIntegerArray(slotToCard.length);
+        slotLocks = new ReentrantLock[slotToCard.length];
+        Arrays.setAll(slotLocks, slot -> new ReentrantLock());
+        animator = new TableAnimator(env.config.tableDelayMillis);
     }
 
     /**
@@ -61,8 +95,9 @@ public class Table {
      * This method prints all possible legal sets of cards that are currently on the table.
      */
     public void hints() {
-        List<Integer> deck = Arrays.stream(slotToCard).filter(Objects::nonNull).collect(Collectors.toList());
-        env.util.findSets(deck, Integer.MAX_VALUE).forEach(set -> {
+        if (!anySet()) return;
+        int[] cards = cardsOnTable();
+        env.util.streamSets(cards, cards.length).forEach(set -> {
             StringBuilder sb = new StringBuilder().append("Hint: Set found: ");
             List<Integer> slots = Arrays.stream(set).mapToObj(card -> cardToSlot[card]).sorted().collect(Collectors.toList());
             int[][] features = env.util.cardsToFeatures(set);
@@ -83,6 +118,55 @@ public class Table {
         return cards;
     }
 
+    /**
+     * Returns the number of legal sets among the cards currently on the table.
+     *
+     * @return - the number of sets on the table.
+     */
+    public int setCount() {
+        return setCount;
+    }
+
+    /**
+     * Checks if the cards currently on the table contain a legal set.
+     *
+     * @return - true iff there is at least one set on the table.
+     */
+    public boolean anySet() {
+        return setCount > 0;
+    }
+
+    /**
+     * Counts the sets on the table that contain the card in the given slot, by looking up the card that completes it
+     * with every other card on the table.
+     */
+    private int setsWithCard(int card, int slot) {
+        int sets = 0;
+        for (int other = 0; other < slotToCard.length; ++other) {
+            if (other == slot || slotToCard[other] == null || slotToCard[other] == -1)
+                continue;
+            int third = env.util.thirdCard(card, slotToCard[other]);
+            if (third < 0 || third >= cardToSlot.length || cardToSlot[third] == null)
+                continue;
+            int thirdSlot = cardToSlot[third];
+            if (thirdSlot > other && thirdSlot != slot && slotToCard[thirdSlot] != null && slotToCard[thirdSlot] == third) //count each pair once
+                ++sets;
+        }
+        return sets;
+    }
+
+    /**
+     * Recounts the sets on the table from scratch (for sets that are not of 3 cards).
+     */
+    private void recountSets() {
+        int[] cards = cardsOnTable();
+        setCount = (int) env.util.streamSets(cards, cards.length).count();
+    }
+
+    private int[] cardsOnTable() {
+        return Arrays.stream(slotToCard).filter(card -> card != null && card != -1).mapToInt(Integer::intValue).toArray();
+    }
+
     /**
      * Places a card on the table in a grid slot.
      *
@@ -91,17 +175,21 @@ public class Table {
      * @post - the card placed is on the table, in the assigned slot.
      */
     public void placeCard(int card, int slot) {
+        slotLocks[slot].lock();
         try {
-            Thread.sleep(env.config.tableDelayMillis);
-        } catch (InterruptedException ignored) {
+            //update the table
+            cardToSlot[card] = slot;
+            setCardFromSlot(slot, card);
+            if (env.config.featureSize == 3)
+                setCount += setsWithCard(card, slot);
+            else
+                recountSets();
+
+            //update the interface (after the table delay)
+            animator.submit(() -> env.ui.placeCard(card, slot), true);
+        } finally {
+            slotLocks[slot].unlock();
         }
-
-        //update the table
-        cardToSlot[card] = slot;
-        setCardFromSlot(slot, card);
-
-        //update the interface
-        env.ui.placeCard(card, slot);
     }
 
     /**
@@ -110,33 +198,35 @@ public class Table {
      * @param slot - the slot from which to remove the card.
      */
     public void removeCard(int card, int slot, Player[] players) {
+        slotLocks[slot].lock();
         try {
-            Thread.sleep(env.config.tableDelayMillis);
-        } catch (InterruptedException ignored) {
+            //update the table
+            if (env.config.featureSize == 3)
+                setCount -= setsWithCard(card, slot);
+            cardToSlot[card] = -1;
+            setCardFromSlot(slot, -1);
+            if (env.config.featureSize != 3)
+                recountSets();
+            removeTokenFromPlayers(slot, players); //remove the tokens from the players
+            slotVersions.incrementAndGet(slot); //the key presses waiting for this card are dropped
+            for (int word = 0; word < tokenWords; word++) //update the tokens bitset
+                slotToTokens.set(slot * tokenWords + word, 0);
+
+            //update the interface (after the table delay)
+            animator.submit(() -> {
+                env.ui.removeTokens(slot);
+                env.ui.removeCard(slot);
+            }, true);
+        } finally {
+            slotLocks[slot].unlock();
         }
-        //update the table
-        cardToSlot[card] = -1;
-        setCardFromSlot(slot, -1);
-        removeTokenFromPlayers(slot, players); //remove the tokens from the players
-        removeSlotFromPlayerActions(slot, players);
-        for (int i = 0; i < players.length; i++) //update the tokens array
-            slotToToken[slot][i] = 0;
-
-        //update the interface
-        env.ui.removeTokens(slot);
-        env.ui.removeCard(slot);
-
-    }
-
-    private void removeSlotFromPlayerActions(int slot, Player[] players) {
-        for (int i = 0; i < players.length; i++)
-            players[i].removeFromActionBlock(slot);
     }
 
     public void removeTokenFromPlayers(int slot, Player[] players) {
-        for (int i = 0; i < players.length; i++)
-            if (slotToToken[slot][i] == 1)
-                players[i].removeToken(slot); //each player that placed token remove it
+        for (int word = 0; word < tokenWords; word++) {
+            for (long bits = slotToTokens.get(slot * tokenWords + word); bits != 0; bits &= bits - 1)
+                players[word * Long.SIZE + Long.numberOfTrailingZeros(bits)].removeToken(slot); //each player that placed token remove it
+        }
     }
 
     /**
@@ -146,8 +236,13 @@ public class Table {
      * @param slot   - the slot on which to place the token.
      */
     public void placeToken(int player, int slot) {
-        slotToToken[slot][player] = 1; //update the token array
-        env.ui.placeToken(player, slot);//update the interface
+        slotLocks[slot].lock();
+        try {
+            slotToTokens.accumulateAndGet(tokenIndex(player, slot), tokenBit(player), (word, bit) -> word | bit); //update the tokens bitset
+            animator.submit(() -> env.ui.placeToken(player, slot), false);//update the interface
+        } finally {
+            slotLocks[slot].unlock();
+        }
 
     }
 
@@ -159,8 +254,13 @@ public class Table {
      * @return - true iff a token was successfully removed.
      */
     public void removeToken(int player, int slot) {
-        slotToToken[slot][player] = 0; //update the token array
-        env.ui.removeToken(player, slot);//update the interface
+        slotLocks[slot].lock();
+        try {
+            slotToTokens.accumulateAndGet(tokenIndex(player, slot), ~tokenBit(player), (word, mask) -> word & mask); //update the tokens bitset
+            animator.submit(() -> env.ui.removeToken(player, slot), false);//update the interface
+        } finally {
+            slotLocks[slot].unlock();
+        }
     }
 
     public void removeAll(Player[] players) { //remove all the cards
@@ -172,18 +272,58 @@ public class Table {
 
     }
 
-    public ArrayList<Integer> getPlayersFromSlots(int[] slots) {
-        ArrayList<Integer> ans = new ArrayList<Integer>();
+    /**
+     * Shows the pending card animations at once and stops the animation thread (called when the game ends).
+     */
+    public void shutdown() {
+        animator.shutdown();
+    }
 
-        for (int i = 0; i < slots.length; i++) {
-            for (int j = 0; j < slotToToken[slots[i]].length; j++) {
-                if (slotToToken[slots[i]][j] == 1 & !ans.contains(j)) //check in each slot for every player if placed token
-                    ans.add(j);// add it to players to remove
+    /**
+     * Returns the players with a token on any of the given slots.
+     *
+     * @param slots - the slots.
+     * @return - the ids of the players, in ascending order.
+     */
+    public ArrayList<Integer> getPlayersFromSlots(int[] slots) {
+        long[] union = new long[tokenWords];
+        for (int slot : slots) {
+            slotLocks[slot].lock();
+            try {
+                for (int word = 0; word < tokenWords; word++)
+                    union[word] |= slotToTokens.get(slot * tokenWords + word);
+            } finally {
+                slotLocks[slot].unlock();
             }
         }
+
+        ArrayList<Integer> ans = new ArrayList<Integer>();
+        for (int word = 0; word < tokenWords; word++) {
+            for (long bits = union[word]; bits != 0; bits &= bits - 1)
+                ans.add(word * Long.SIZE + Long.numberOfTrailingZeros(bits)); // add it to players to remove
+        }
         return ans;
     }
 
+    /**
+     * Checks if a player has a token on a slot.
+     *
+     * @param player - the player.
+     * @param slot   - the slot.
+     * @return - true iff the player has a token on the slot.
+     */
+    public boolean hasToken(int player, int slot) {
+        return (slotToTokens.get(tokenIndex(player, slot)) & tokenBit(player)) != 0;
+    }
+
+    private int tokenIndex(int player, int slot) {
+        return slot * tokenWords + player / Long.SIZE;
+    }
+
+    private static long tokenBit(int player) {
+        return 1L << player; // shifts by player % 64
+    }
+
     public ArrayList<Integer> getSlotsWithCards() {
         ArrayList<Integer> ans = new ArrayList<>();
 
@@ -196,6 +336,26 @@ public class Table {
         return ans;
     }
 
+    /**
+     * Returns the lock of a slot, to place or remove a token only while the card in the slot does not change.
+     *
+     * @param slot - the slot.
+     * @return - the lock of the slot.
+     */
+    public ReentrantLock getSlotLock(int slot) {
+        return slotLocks[slot];
+    }
+
+    /**
+     * Returns the version of a slot, which changes whenever the card in it is removed.
+     *
+     * @param slot - the slot.
+     * @return - the version.
+     */
+    public int getSlotVersion(int slot) {
+        return slotVersions.get(slot);
+    }
+
     public int getCardFromSlot(int slot) {
         return slotToCard[slot];
     }
@@ -203,8 +363,5 @@ public class Table {
     public void setCardFromSlot(int slot, int card) {
         slotToCard[slot] = card;
     }
-    public int[][] getSlotToToken(){
-        return slotToToken;
-    }
 
 }
\ No newline at end of file
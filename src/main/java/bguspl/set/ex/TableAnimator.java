@@ -0,0 +1,117 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class applies the table's user interface updates on an animation thread, in the order they were submitted.
+ * Paced updates (cards placed or removed) are delayed by the table delay, so the dealer changes the table's logical
+ * state at once and does not wait for the animation. With no table delay, the updates run on the calling thread.
+ */
+public class TableAnimator {
+
+    /**
+     * The delay before each paced update (in milliseconds).
+     */
+    private final long delayMillis;
+
+    /**
+     * The updates left to apply, and the marker of the end of the queue.
+     */
+    private final BlockingQueue<Step> steps = new LinkedBlockingQueue<>();
+    private static final Step END = new Step(() -> {}, false);
+
+    /**
+     * The animation thread (started by the first update submitted, virtual if that update came from a virtual thread).
+     */
+    private Thread thread;
+
+    /**
+     * True iff the animator was shut down (the updates left are applied without delay).
+     */
+    private volatile boolean closed;
+
+    private static class Step {
+        final Runnable update;
+        final boolean paced;
+
+        Step(Runnable update, boolean paced) {
+            this.update = update;
+            this.paced = paced;
+        }
+    }
+
+    /**
+     * The class constructor.
+     *
+     * @param delayMillis - the delay before each paced update (in milliseconds).
+     */
+    public TableAnimator(long delayMillis) {
+        this.delayMillis = delayMillis;
+    }
+
+    /**
+     * Submits a user interface update.
+     *
+     * @param update - the update to apply.
+     * @param paced  - true iff the update should be delayed by the table delay.
+     */
+    public synchronized void submit(Runnable update, boolean paced) {
+        if (delayMillis <= 0 || closed) {
+            update.run();
+            return;
+        }
+        if (thread == null) {
+            thread = Thread.currentThread().isVirtual() //a virtual thread for games played on virtual threads
+                    ? Thread.ofVirtual().name("table animator").unstarted(this::animate)
+                    : new Thread(this::animate, "table animator");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        steps.add(new Step(update, paced));
+    }
+
+    /**
+     * Applies the updates left without delay and stops the animation thread. Later updates run on the calling thread.
+     */
+    public void shutdown() {
+        Thread animator;
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+            animator = thread;
+            steps.add(END);
+        }
+        if (animator == null)
+            return;
+        LockSupport.unpark(animator); //cut the current delay short
+        try {
+            animator.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void animate() {
+        try {
+            for (Step step = steps.take(); step != END; step = steps.take()) {
+                if (step.paced)
+                    pause();
+                step.update.run();
+            }
+        } catch (InterruptedException ignored) {
+        }
+    }
+
+    /**
+     * Waits for the table delay, or until the animator is shut down.
+     */
+    private void pause() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        for (long left = deadline - System.nanoTime(); left > 0 && !closed; left = deadline - System.nanoTime())
+            LockSupport.parkNanos(this, left);
+    }
+}
@@ -0,0 +1,205 @@
+package bguspl.set.ex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class is a hashed timer wheel: tasks are kept in a ring of buckets by the tick of their deadline, and a single
+ * daemon thread runs them when their deadline is due. The thread sleeps until the next non empty bucket, or until a
+ * task with an earlier deadline is added, so it does not wake up every tick. The wheel is shared by all the players of
+ * all the games (see shared), so a frozen player holds no thread of its own.
+ */
+public class TimerWheel {
+
+    /**
+     * A task added to the wheel.
+     */
+    public static class Timeout {
+        private final Runnable task;
+        private final long tick;
+        private volatile boolean cancelled;
+
+        private Timeout(Runnable task, long tick) {
+            this.task = task;
+            this.tick = tick;
+        }
+
+        /**
+         * Cancels the task, if it did not run yet.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    /**
+     * A bucket of the wheel: the tasks whose deadline ticks are equal modulo the number of buckets.
+     */
+    private static class Bucket extends ArrayList<Timeout> {
+    }
+
+    /**
+     * Logs the tasks that fail (the wheel has no game environment of its own).
+     */
+    private static final Logger LOGGER = Logger.getLogger(TimerWheel.class.getName());
+
+    private final long tickMillis;
+    private final Bucket[] buckets; // a power of two of buckets
+    private final int mask;
+
+    /**
+     * Guards the buckets, and wakes the wheel's thread up when a task is due earlier than it planned.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition added = lock.newCondition();
+
+    /**
+     * The last tick processed, the tick the wheel's thread sleeps until (Long.MAX_VALUE when the wheel is empty) and
+     * the number of tasks in the buckets.
+     */
+    private long processedTick;
+    private long wakeTick = Long.MAX_VALUE;
+    private int size;
+
+    /**
+     * True iff the wheel was closed (its thread ends, and the tasks left do not run).
+     */
+    private volatile boolean closed;
+
+    /**
+     * The class constructor. Starts the wheel's (daemon) thread.
+     *
+     * @param tickMillis - the length of a tick: the precision of the deadlines.
+     * @param buckets    - the number of buckets (rounded up to a power of two).
+     * @param name       - the name of the wheel's thread.
+     */
+    public TimerWheel(long tickMillis, int buckets, String name) {
+        this.tickMillis = tickMillis;
+        this.buckets = new Bucket[Integer.highestOneBit(Math.max(buckets - 1, 1)) << 1];
+        for (int i = 0; i < this.buckets.length; i++)
+            this.buckets[i] = new Bucket();
+        mask = this.buckets.length - 1;
+        processedTick = System.currentTimeMillis() / tickMillis;
+        Thread thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static class Shared {
+        static final TimerWheel WHEEL = new TimerWheel(1, 1024, "timer-wheel");
+    }
+
+    /**
+     * Returns the wheel shared by the whole process, with millisecond ticks (started on first use).
+     *
+     * @return - the shared wheel.
+     */
+    public static TimerWheel shared() {
+        return Shared.WHEEL;
+    }
+
+    /**
+     * Adds a task to run on the wheel's thread at a deadline (right away if it passed). The task must be short.
+     *
+     * @param task     - the task.
+     * @param deadline - the time to run the task, in System.currentTimeMillis terms.
+     * @return - the timeout, to cancel the task with.
+     */
+    public Timeout schedule(Runnable task, long deadline) {
+        lock.lock();
+        try {
+            Timeout timeout = new Timeout(task, Math.max(deadline / tickMillis, processedTick + 1));
+            buckets[(int) timeout.tick & mask].add(timeout);
+            size++;
+            if (timeout.tick < wakeTick)
+                added.signal();
+            return timeout;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops the wheel's thread. The tasks left do not run (the shared wheel is never closed).
+     */
+    public void close() {
+        closed = true;
+        lock.lock();
+        try {
+            added.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The wheel's thread: runs the tasks due, then sleeps until the next non empty bucket.
+     */
+    private void run() {
+        List<Timeout> due = new ArrayList<>();
+        while (!closed) {
+            lock.lock();
+            try {
+                if (closed)
+                    return;
+                collectDue(System.currentTimeMillis() / tickMillis, due);
+                if (due.isEmpty()) {
+                    wakeTick = nextTick();
+                    if (wakeTick == Long.MAX_VALUE)
+                        added.await();
+                    else
+                        added.await(wakeTick * tickMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+                    wakeTick = Long.MAX_VALUE;
+                }
+            } catch (InterruptedException ignored) {
+            } finally {
+                lock.unlock();
+            }
+            for (Timeout timeout : due) //outside the lock, so that the tasks can schedule more
+                if (!timeout.cancelled)
+                    try {
+                        timeout.task.run();
+                    } catch (RuntimeException e) { //a failing task must not stop the tasks of the other players
+                        LOGGER.log(Level.SEVERE, "timer wheel task failed", e);
+                    }
+            due.clear();
+        }
+    }
+
+    /**
+     * Moves the tasks of the ticks since the last one processed, up to now, to due.
+     */
+    private void collectDue(long now, List<Timeout> due) {
+        long last = Math.min(now, processedTick + buckets.length); //a full round visits every bucket
+        for (long tick = processedTick + 1; tick <= last; tick++) {
+            Bucket bucket = buckets[(int) tick & mask];
+            for (int i = bucket.size() - 1; i >= 0; i--) {
+                if (bucket.get(i).tick <= now) { //not a task of a later round
+                    due.add(bucket.get(i));
+                    bucket.set(i, bucket.get(bucket.size() - 1));
+                    bucket.remove(bucket.size() - 1);
+                    size--;
+                }
+            }
+        }
+        processedTick = Math.max(processedTick, now);
+    }
+
+    /**
+     * Returns the next tick with a non empty bucket (its tasks may be of a later round), or Long.MAX_VALUE if the
+     * wheel is empty.
+     */
+    private long nextTick() {
+        if (size == 0)
+            return Long.MAX_VALUE;
+        for (long tick = processedTick + 1; tick <= processedTick + buckets.length; tick++)
+            if (!buckets[(int) tick & mask].isEmpty())
+                return tick;
+        return processedTick + buckets.length;
+    }
+}
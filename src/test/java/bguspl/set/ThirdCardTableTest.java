@@ -0,0 +1,81 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ThirdCardTableTest {
+
+    @TempDir
+    Path directory;
+
+    private UtilImpl util;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "4");
+        util = new UtilImpl(new Config(new UtilImplTest.MockLogger(), properties));
+    }
+
+    @Test
+    void load_MatchesComputedThirdCards() throws IOException {
+        ThirdCardTable table = ThirdCardTable.load(directory, 4, util::thirdCard);
+        for (int first = 0; first < 81; ++first)
+            for (int second = 0; second < 81; ++second)
+                assertEquals(util.thirdCard(first, second), table.get(first, second));
+    }
+
+    @Test
+    void load_ReusesTheSavedTable() throws IOException {
+        ThirdCardTable.load(directory, 4, util::thirdCard);
+        ThirdCardTable table = ThirdCardTable.load(directory, 4, (first, second) -> {
+            throw new AssertionError("the table should not be generated again");
+        });
+        assertEquals(80, table.get(0, 40));
+    }
+
+    @Test
+    void load_RegeneratesAMismatchingFile() throws IOException {
+        Path file = directory.resolve("third-cards-4x3.bin");
+        Files.write(file, new byte[]{1, 2, 3});
+        ThirdCardTable table = ThirdCardTable.load(directory, 4, util::thirdCard);
+        assertEquals(2, table.get(0, 1));
+        assertTrue(Files.size(file) > 3);
+    }
+
+    @Test
+    void utilWithTable_MatchesUtilWithoutTable() {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "4");
+        properties.put("ThirdCardTableDirectory", directory.toString());
+        UtilImpl mapped = new UtilImpl(new Config(new UtilImplTest.MockLogger(), properties));
+
+        List<Integer> deck = IntStream.range(0, 81).boxed().collect(Collectors.toList());
+        Collections.shuffle(deck, new Random(1));
+        List<int[]> expected = util.findSets(deck, Integer.MAX_VALUE);
+        List<int[]> actual = mapped.findSets(deck, Integer.MAX_VALUE);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); ++i) {
+            assertArrayEquals(expected.get(i), actual.get(i));
+            assertTrue(mapped.testSet(actual.get(i)));
+        }
+        assertEquals(util.testSet(new int[]{0, 1, 5}), mapped.testSet(new int[]{0, 1, 5}));
+    }
+}
@@ -0,0 +1,198 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class UtilImplTest {
+
+    UtilImpl util;
+    private Config config;
+    private boolean sink; // keeps the measured calls from being optimized away
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "4");
+        config = new Config(new MockLogger(), properties);
+        util = new UtilImpl(config);
+    }
+
+    private List<Integer> shuffledDeck(Random random, int size) {
+        List<Integer> deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+        Collections.shuffle(deck, random);
+        return deck.subList(0, size);
+    }
+
+    private void assertSameSets(List<int[]> expected, List<int[]> actual) {
+        assertEquals(expected.size(), actual.size());
+        Iterator<int[]> actualSets = actual.iterator();
+        for (int[] set : expected)
+            assertArrayEquals(set, actualSets.next());
+    }
+
+    @Test
+    void findSets_FullDeck() {
+        List<Integer> deck = shuffledDeck(new Random(1), config.deckSize);
+        List<int[]> sets = util.findSets(deck, Integer.MAX_VALUE);
+        assertEquals(1080, sets.size());
+        assertSameSets(util.findSetsByCombination(deck, Integer.MAX_VALUE), sets);
+    }
+
+    @Test
+    void findSets_MatchesCombinationSearch() {
+        Random random = new Random(2);
+        for (int round = 0; round < 200; ++round) {
+            List<Integer> deck = shuffledDeck(random, random.nextInt(config.deckSize + 1));
+            for (int count : new int[]{1, 3, Integer.MAX_VALUE})
+                assertSameSets(util.findSetsByCombination(deck, count), util.findSets(deck, count));
+        }
+    }
+
+    @Test
+    void findSets_AllFoundSetsAreLegal() {
+        for (int[] set : util.findSets(shuffledDeck(new Random(3), 12), Integer.MAX_VALUE))
+            assertTrue(util.testSet(set));
+    }
+
+    @Test
+    void findSetsParallel_MatchesSequentialSearch() {
+        for (String[] dimensions : new String[][]{{"3", "6"}, {"2", "7"}}) {
+            Properties properties = new Properties();
+            properties.put("FeatureSize", dimensions[0]);
+            properties.put("FeatureCount", dimensions[1]);
+            Config large = new Config(new MockLogger(), properties);
+            UtilImpl largeUtil = new UtilImpl(large);
+            List<Integer> deck = IntStream.range(0, large.deckSize).boxed().collect(Collectors.toList());
+            Collections.shuffle(deck, new Random(5));
+
+            assertSameSets(largeUtil.findSets(deck, Integer.MAX_VALUE), largeUtil.findSetsParallel(deck, Integer.MAX_VALUE));
+
+            List<int[]> some = largeUtil.findSetsParallel(deck, 10);
+            assertEquals(10, some.size());
+            for (int[] set : some)
+                assertTrue(largeUtil.testSet(set));
+        }
+    }
+
+    @Test
+    void streamSets_MatchesFindSets() {
+        Random random = new Random(6);
+        for (int round = 0; round < 50; ++round) {
+            List<Integer> deck = shuffledDeck(random, random.nextInt(config.deckSize + 1));
+            int[] cards = deck.stream().mapToInt(Integer::intValue).toArray();
+            List<int[]> expected = util.findSets(deck, Integer.MAX_VALUE);
+
+            assertSameSets(expected, util.streamSets(deck).collect(Collectors.toList()));
+            assertSameSets(expected, util.streamSets(cards, cards.length).parallel().collect(Collectors.toList()));
+            assertSameSets(util.findSets(deck, 2), util.findSets(cards, cards.length, 2));
+        }
+    }
+
+    @Test
+    void streamSets_SearchesOnlyTheGivenLength() {
+        int[] cards = {0, 1, 2, 40, 80, 5};
+        assertSameSets(util.findSets(Arrays.asList(0, 1, 2, 40), Integer.MAX_VALUE), util.findSets(cards, 4, Integer.MAX_VALUE));
+        assertEquals(2, util.streamSets(cards, cards.length).count());
+    }
+
+    @Test
+    void cardToFeatures_MatchesCardDigits() {
+        assertArrayEquals(new int[]{0, 0, 0, 0}, util.cardToFeatures(0));
+        assertArrayEquals(new int[]{0, 0, 1, 2}, util.cardToFeatures(5));
+        assertArrayEquals(new int[]{2, 2, 2, 2}, util.cardToFeatures(80));
+        assertArrayEquals(new int[][]{{1, 0, 0, 0}, {0, 1, 0, 2}}, util.cardsToFeatures(new int[]{27, 11}));
+    }
+
+    @Test
+    void testSet_LegalAndIllegalSets() {
+        assertTrue(util.testSet(new int[]{0, 1, 2}));
+        assertTrue(util.testSet(new int[]{0, 40, 80}));
+        assertFalse(util.testSet(new int[]{0, 1, 5}));
+        assertFalse(util.testSet(new int[]{0}));
+    }
+
+    @Test
+    void testSet_MatchesFeatureComparisonForLargeDecks() {
+        Random random = new Random(4);
+        for (int featureSize = 2; featureSize <= 9; ++featureSize)
+            for (int featureCount = 1; featureCount <= 8; ++featureCount) {
+                Properties properties = new Properties();
+                properties.put("FeatureSize", String.valueOf(featureSize));
+                properties.put("FeatureCount", String.valueOf(featureCount));
+                UtilImpl large = new UtilImpl(new Config(new MockLogger(), properties));
+
+                for (int round = 0; round < 50; ++round) {
+                    int[] legal = legalSet(random, featureSize, featureCount);
+                    assertTrue(large.testSet(legal));
+                    assertTrue(large.testSetByFeatures(legal));
+
+                    int[] cards = random.ints(1 + random.nextInt(featureSize), 0, (int) Math.pow(featureSize, featureCount)).toArray();
+                    assertEquals(large.testSetByFeatures(cards), large.testSet(cards));
+                }
+            }
+    }
+
+    /**
+     * Builds a legal set of featureSize cards: each feature is either the same in all cards or a permutation of
+     * all the values.
+     */
+    private static int[] legalSet(Random random, int featureSize, int featureCount) {
+        int[] cards = new int[featureSize];
+        for (int i = 0; i < featureCount; ++i) {
+            List<Integer> values = IntStream.range(0, featureSize).boxed().collect(Collectors.toList());
+            Collections.shuffle(values, random);
+            boolean sameSame = random.nextBoolean();
+            for (int j = 0; j < featureSize; ++j)
+                cards[j] = cards[j] * featureSize + values.get(sameSame ? 0 : j);
+        }
+        return cards;
+    }
+
+    @Test
+    void testSet_DoesNotAllocate() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled());
+
+        int[] set = {0, 40, 80};
+        int[] notSet = {0, 1, 5};
+        boolean result = false;
+        for (int i = 0; i < 100_000; ++i) // warm up
+            result ^= util.testSet(set) ^ util.testSet(notSet);
+
+        long threadId = Thread.currentThread().threadId();
+        long before = allocations.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100_000; ++i)
+            result ^= util.testSet(set) ^ util.testSet(notSet);
+        long allocated = allocations.getThreadAllocatedBytes(threadId) - before;
+
+        sink = result;
+        assertTrue(allocated < 1024, "testSet allocated " + allocated + " bytes");
+    }
+
+    static class MockLogger extends Logger {
+        protected MockLogger() {
+            super("", null);
+        }
+    }
+}
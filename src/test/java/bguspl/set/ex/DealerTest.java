@@ -2,11 +2,15 @@ package bguspl.set.ex;
 
 import bguspl.set.Config;
 import bguspl.set.Env;
+import bguspl.set.UtilImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
+import java.util.SplittableRandom;
 import java.util.concurrent.BlockingDeque;
 import java.util.concurrent.LinkedBlockingDeque;
 
@@ -40,9 +44,9 @@ class DealerTest {
         Integer[] cardToSlot = new Integer[config.deckSize];
         env = new Env(logger, config, new TableTest.MockUserInterface(), new TableTest.MockUtil());
         table = new Table(env, slotToCard, cardToSlot);
-        Player a = new Player(env, dealer, table, 0, true);
-        players = new Player[]{a};
+        players = new Player[1];
         dealer = new Dealer(env, table, players);
+        players[0] = new Player(env, dealer, table, 0, true);
 
     }
 
@@ -50,17 +54,91 @@ class DealerTest {
     @Test
     void CheckAllPlayerFinished(){
         Player b = players[0];
-        b.working.set(true);
+        b.setWorking(false, true);
         assertFalse(dealer.everyOneIsFinished());
-        b.working.set(false);
+        b.setWorking(false, true); //already working, counted once
+        b.setWorking(false, false);
         assertTrue(dealer.everyOneIsFinished());
     }
     @Test
     void AddingPlayerToCheckSet(){
-        assertFalse(dealer.getPlayerToCheck().contains(players[0].id));
-        dealer.checkSet(players[0].id);
-        assertTrue(dealer.getPlayerToCheck().contains(players[0].id));
+        assertTrue(dealer.getPlayerToCheck().isEmpty());
+        dealer.checkSet(claim(players[0], System.nanoTime()));
+        assertEquals(players[0].id, dealer.getPlayerToCheck().peek().player);
+        assertTrue(players[0].isWaiting());
     }
 
+    @Test
+    void checkSet_ClaimsDrainedByThirdTokenTime() {
+        long now = System.nanoTime();
+        dealer.getPlayerToCheck().add(new Claim(1, new int[3], new int[3], now + 20));
+        dealer.getPlayerToCheck().add(new Claim(2, new int[3], new int[3], now - 10));
+        dealer.getPlayerToCheck().add(new Claim(0, new int[3], new int[3], now + 20));
+
+        List<Claim> claims = new ArrayList<>();
+        dealer.getPlayerToCheck().drainTo(claims);
+        assertEquals(Arrays.asList(2, 0, 1), Arrays.asList(claims.get(0).player, claims.get(1).player, claims.get(2).player));
+    }
+
+    private static Claim claim(Player player, long time) {
+        return new Claim(player.id, player.getSetAsSlots(), player.getSetAsCards(), time);
+    }
+
+    @Test
+    void collectSets_ConflictingClaimsResolvedByThirdTokenTime() {
+        Properties properties = new Properties();
+        properties.put("TableDelaySeconds", "0");
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, properties);
+        Env env = new Env(logger, config, new TableTest.MockUserInterface(), new UtilImpl(config));
+        Table table = new Table(env);
+        Player[] players = new Player[2];
+        Dealer dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, true);
 
-}
\ No newline at end of file
+        int[] cards = {78, 79, 80, 53, 26}; // {78, 79, 80} and {80, 53, 26} are sets sharing card 80
+        for (int slot = 0; slot < cards.length; slot++)
+            table.placeCard(cards[slot], slot);
+        for (int slot : new int[]{0, 1, 2})
+            players[0].placeAction(slot);
+        for (int slot : new int[]{2, 3, 4})
+            players[1].placeAction(slot);
+        long now = System.nanoTime();
+        dealer.checkSet(claim(players[1], now + 1)); //arrives first, but its third token was placed later
+        dealer.checkSet(claim(players[0], now));
+
+        List<Claim> claims = new ArrayList<>();
+        dealer.getPlayerToCheck().drainTo(claims);
+        assertTrue(dealer.collectSets(claims));
+
+        assertEquals(1, players[0].score());
+        assertEquals(0, players[1].score());
+        assertEquals(53, table.getCardFromSlot(3));
+        assertEquals(26, table.getCardFromSlot(4));
+        for (int slot : new int[]{0, 1, 2})
+            assertFalse(Arrays.asList(78, 79, 80).contains(table.getCardFromSlot(slot)));
+        assertEquals(Arrays.asList(3, 4), players[1].getTokens());
+        assertEquals(1, dealer.getClaimLatency().count());
+    }
+
+    @Test
+    void shuffleForDeal_DealtCardsContainASet() {
+        Properties properties = new Properties();
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, properties);
+        UtilImpl util = new UtilImpl(config);
+        IntDeck deck = new IntDeck(config.deckSize, new SplittableRandom(7));
+        // keep the 16 cards with no feature of value 2 (no set among them) and card 80 (all features 2), so every set
+        // includes card 80 and about a third of the random deals of 12 have no set
+        for (int card = 0; card < 80; card++)
+            if (Integer.toString(card, 3).contains("2"))
+                deck.remove(card);
+        assertFalse(util.findSets(deck.cards(), deck.size(), 1).isEmpty());
+
+        for (int i = 0; i < 1000; i++) {
+            Dealer.shuffleForDeal(util, deck, 12);
+            assertFalse(util.findSets(deck.cards(), 12, 1).isEmpty());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeckSetsTest {
+
+    private UtilImpl util;
+    private Config config;
+    private List<Integer> deck;
+    private DeckSets deckSets;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "3");
+        config = new Config(new TableTest.MockLogger(), properties);
+        util = new UtilImpl(config);
+        deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+        deckSets = new DeckSets(util, deck.stream().mapToInt(Integer::intValue).toArray(), deck.size(), config.deckSize, config.featureSize);
+    }
+
+    @Test
+    void liveSets_FullDeck() {
+        assertEquals(117, deckSets.liveSets());
+        assertTrue(deckSets.anySet());
+    }
+
+    @Test
+    void remove_MatchesSetsLeftInDeck() {
+        Collections.shuffle(deck, new Random(1));
+        while (!deck.isEmpty()) {
+            deckSets.remove(deck.remove(deck.size() - 1));
+            int expected = util.findSets(deck, Integer.MAX_VALUE).size();
+            assertEquals(expected, deckSets.liveSets());
+            assertEquals(expected > 0, deckSets.anySet());
+        }
+        assertFalse(deckSets.anySet());
+    }
+
+    @Test
+    void remove_NotIndexedMatchesSetsLeftInDeck() {
+        deckSets = new DeckSets(util, deck.stream().mapToInt(Integer::intValue).toArray(), deck.size(), config.deckSize, config.featureSize, 0);
+        assertEquals(117, deckSets.liveSets());
+        Collections.shuffle(deck, new Random(2));
+        while (!deck.isEmpty()) {
+            deckSets.remove(deck.remove(deck.size() - 1));
+            assertEquals(!util.findSets(deck, 1).isEmpty(), deckSets.anySet());
+        }
+        assertFalse(deckSets.anySet());
+    }
+}
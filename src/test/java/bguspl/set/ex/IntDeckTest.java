@@ -0,0 +1,103 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntDeckTest {
+
+    private static final int DECK_SIZE = 81;
+    private IntDeck deck;
+
+    @BeforeEach
+    void setUp() {
+        deck = new IntDeck(DECK_SIZE, new SplittableRandom(1));
+    }
+
+    private int[] sortedCards() {
+        int[] cards = Arrays.copyOf(deck.cards(), deck.size());
+        Arrays.sort(cards);
+        return cards;
+    }
+
+    @Test
+    void shuffle_IsAPermutation() {
+        int[] before = Arrays.copyOf(deck.cards(), deck.size());
+        deck.shuffle();
+        assertNotEquals(Arrays.toString(before), Arrays.toString(Arrays.copyOf(deck.cards(), deck.size())));
+        assertArrayEquals(IntStream.range(0, DECK_SIZE).toArray(), sortedCards());
+    }
+
+    @Test
+    void shuffle_SameSeedSameOrder() {
+        IntDeck other = new IntDeck(DECK_SIZE, new SplittableRandom(1));
+        deck.shuffle();
+        other.shuffle();
+        assertArrayEquals(deck.cards(), other.cards());
+    }
+
+    @Test
+    void draw_FollowsTheDeckOrder() {
+        deck.shuffle();
+        int[] order = Arrays.copyOf(deck.cards(), deck.size());
+        for (int card : order) {
+            assertTrue(deck.hasNext());
+            assertEquals(card, deck.draw());
+        }
+        assertFalse(deck.hasNext());
+    }
+
+    @Test
+    void remove_KeepsDrawnAndRemainingCardsApart() {
+        deck.shuffle();
+        int[] drawn = new int[12];
+        for (int i = 0; i < drawn.length; ++i)
+            drawn[i] = deck.draw();
+
+        deck.remove(drawn[3]);
+        deck.remove(drawn[7]);
+        int next = deck.cards()[10];
+        deck.remove(next); // a card that was not drawn yet
+
+        assertEquals(DECK_SIZE - 3, deck.size());
+        assertFalse(deck.contains(drawn[3]));
+        assertFalse(deck.contains(drawn[7]));
+        assertFalse(deck.contains(next));
+        for (int i = 0; i < 10; ++i) { // the 10 drawn cards are still before the cursor
+            int card = deck.cards()[i];
+            assertTrue(Arrays.stream(drawn).anyMatch(drawnCard -> drawnCard == card));
+        }
+        int remaining = 0;
+        while (deck.hasNext()) {
+            int card = deck.draw();
+            assertTrue(Arrays.stream(drawn).noneMatch(drawnCard -> drawnCard == card));
+            ++remaining;
+        }
+        assertEquals(DECK_SIZE - 12 - 1, remaining);
+    }
+
+    @Test
+    void moveToTop_ChosenCardsAreDrawnNext() {
+        deck.shuffle();
+        int[] order = Arrays.copyOf(deck.cards(), deck.size());
+        int[] chosen = {order[2], order[40], order[80]};
+        deck.moveToTop(chosen, 12);
+
+        int[] top = new int[12];
+        for (int i = 0; i < top.length; ++i)
+            top[i] = deck.draw();
+        for (int card : chosen)
+            assertTrue(Arrays.stream(top).anyMatch(drawnCard -> drawnCard == card));
+        assertEquals(order[2], top[2]); // a chosen card already on top is not moved
+        assertArrayEquals(IntStream.range(0, DECK_SIZE).toArray(), sortedCards());
+    }
+}
@@ -0,0 +1,86 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyPressRingTest {
+
+    private KeyPressRing ring;
+
+    @BeforeEach
+    void setUp() {
+        ring = new KeyPressRing(3);
+    }
+
+    @Test
+    void poll_FirstInFirstOut() {
+        ring.offer(4);
+        ring.offer(7);
+        assertEquals(4, ring.poll());
+        assertEquals(7, ring.poll());
+        assertEquals(KeyPressRing.EMPTY, ring.poll());
+    }
+
+    @Test
+    void offer_RejectedWhenFull() {
+        assertTrue(ring.offer(1));
+        assertTrue(ring.offer(2));
+        assertTrue(ring.offer(3));
+        assertTrue(ring.isFull());
+        assertFalse(ring.offer(4));
+        assertEquals(3, ring.size());
+    }
+
+    @Test
+    void offer_WrapsAround() {
+        for (int i = 0; i < 100; i++) {
+            assertTrue(ring.offer(i));
+            assertTrue(ring.offer(i + 1000));
+            assertEquals(i, ring.poll());
+            assertEquals(i + 1000, ring.poll());
+        }
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    void offer_TwoProducers() throws InterruptedException {
+        int count = 20000;
+        Thread[] producers = new Thread[2];
+        for (int p = 0; p < producers.length; p++) {
+            int first = p * count;
+            producers[p] = new Thread(() -> {
+                for (int i = first; i < first + count; i++)
+                    while (!ring.offer(i))
+                        Thread.yield(); // full: let the consumer run
+            });
+            producers[p].start();
+        }
+        boolean[] seen = new boolean[2 * count];
+        for (int received = 0; received < seen.length; ) {
+            int value = ring.poll();
+            if (value == KeyPressRing.EMPTY) {
+                Thread.yield();
+                continue;
+            }
+            assertFalse(seen[value]);
+            seen[value] = true;
+            received++;
+        }
+        for (Thread producer : producers)
+            producer.join();
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    void awaitNotEmpty_WokenByOffer() throws InterruptedException {
+        Thread producer = new Thread(() -> ring.offer(5));
+        producer.start();
+        ring.awaitNotEmpty(() -> false);
+        assertEquals(5, ring.poll());
+        producer.join();
+    }
+}
@@ -8,14 +8,19 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -73,6 +78,7 @@ class PlayerTest {
 
     @Test
     void isItRemovingAction(){
+        when(table.getSlotLock(3)).thenReturn(new ReentrantLock());
         player.placeAction(3);
         assertTrue(player.removingSlot(3));
         assertFalse(player.removingSlot(2));
@@ -86,6 +92,32 @@ class PlayerTest {
         assertTrue(playerTokens.size()==0);
     }
 
+    @Test
+    void freezeNotEndedByTheDealer() throws InterruptedException {
+        long start = System.currentTimeMillis();
+        Thread frozen = new Thread(() -> player.sleepForTime(true)); // a point freeze (1 second by default)
+        frozen.start();
+        Thread.sleep(100);
+        player.setWaiting(false); // the dealer releases the players of a collected set
+        player.wakeUp();
+        frozen.join(5000);
+        assertFalse(frozen.isAlive());
+        assertTrue(System.currentTimeMillis() - start >= 1000);
+    }
+
+    @Test
+    void freezeShowsEveryWholeSecond() {
+        Properties properties = new Properties();
+        properties.put("PenaltyFreezeSeconds", "2.5");
+        Env env = new Env(logger, new Config(logger, properties), ui, util);
+        Player frozen = new Player(env, dealer, table, 1, true);
+        frozen.sleepForTime(false);
+
+        ArgumentCaptor<Long> shown = ArgumentCaptor.forClass(Long.class);
+        verify(ui, atLeastOnce()).setFreeze(eq(1), shown.capture());
+        assertEquals(List.of(3000L, 2000L, 1000L, 0L), shown.getAllValues());
+    }
+
     @Test
     void isTerminated(){
         boolean terminatePre=player.getTerminate();
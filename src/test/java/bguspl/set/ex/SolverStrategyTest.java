@@ -0,0 +1,64 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SolverStrategyTest {
+
+    private Table table;
+    private Player player;
+    private SolverStrategy solver;
+
+    @BeforeEach
+    void setUp() {
+        Properties properties = new Properties();
+        properties.put("Rows", "2");
+        properties.put("Columns", "2");
+        properties.put("FeatureSize", "3");
+        properties.put("FeatureCount", "4");
+        properties.put("TableDelaySeconds", "0");
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, properties);
+        Env env = new Env(logger, config, new TableTest.MockUserInterface(), new UtilImpl(config));
+        Integer[] slotToCard = {1, 4, 2, 0}; // cards 0, 1 and 2 differ only in the last feature: a set
+        Integer[] cardToSlot = new Integer[config.deckSize];
+        for (int slot = 0; slot < slotToCard.length; slot++)
+            cardToSlot[slotToCard[slot]] = slot;
+        table = new Table(env, slotToCard, cardToSlot);
+        player = new Player(env, null, table, 0, false);
+        solver = new SolverStrategy(env.util, config.featureSize, new SplittableRandom(1), 0, 0);
+    }
+
+    @Test
+    void nextSlot_PressesTheSlotsOfASet() {
+        assertEquals(0, solver.nextSlot(table, player));
+        assertEquals(2, solver.nextSlot(table, player));
+        assertEquals(3, solver.nextSlot(table, player));
+    }
+
+    @Test
+    void nextSlot_PlansAgainWhenACardIsReplaced() {
+        assertEquals(0, solver.nextSlot(table, player));
+        table.placeToken(player.id, 0);
+        table.setCardFromSlot(2, 7); // card 2 was replaced: now cards 1, 4 and 7 (slots 0, 1 and 2) are the set
+        assertEquals(1, solver.nextSlot(table, player));
+        assertEquals(2, solver.nextSlot(table, player));
+    }
+
+    @Test
+    void nextSlot_RemovesTokensNotOnTheSet() {
+        table.placeToken(player.id, 1);
+        table.placeToken(player.id, 2);
+        assertEquals(1, solver.nextSlot(table, player));
+        assertEquals(0, solver.nextSlot(table, player));
+        assertEquals(3, solver.nextSlot(table, player));
+    }
+}
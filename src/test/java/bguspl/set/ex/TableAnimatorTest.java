@@ -0,0 +1,51 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TableAnimatorTest {
+
+    private final List<Integer> applied = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void submit_NoDelayRunsOnTheCallingThread() {
+        TableAnimator animator = new TableAnimator(0);
+        animator.submit(() -> applied.add(1), true);
+        assertEquals(Collections.singletonList(1), applied);
+    }
+
+    @Test
+    void submit_ReturnsBeforeThePacedUpdatesAreApplied() {
+        TableAnimator animator = new TableAnimator(10_000);
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 12; i++)
+            animator.submit(() -> applied.add(0), true);
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        assertTrue(applied.isEmpty());
+        animator.shutdown();
+    }
+
+    @Test
+    void shutdown_AppliesTheUpdatesLeftInOrder() throws InterruptedException {
+        TableAnimator animator = new TableAnimator(10_000);
+        for (int i = 0; i < 5; i++) {
+            int update = i;
+            animator.submit(() -> applied.add(update), i % 2 == 0);
+        }
+        Thread.sleep(100); //the animation thread is in the delay of the first update
+        long start = System.currentTimeMillis();
+        animator.shutdown();
+        assertTrue(System.currentTimeMillis() - start < 10_000);
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), applied);
+
+        animator.submit(() -> applied.add(5), true);
+        assertEquals(6, applied.size());
+    }
+}
@@ -4,16 +4,25 @@ import bguspl.set.Config;
 import bguspl.set.Env;
 import bguspl.set.UserInterface;
 import bguspl.set.Util;
+import bguspl.set.UtilImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
+import java.util.Random;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class TableTest {
 
@@ -99,9 +108,9 @@ class TableTest {
 
     @Test
     void TokenIsPlaced(){
-        int[][] slotToToken=table.getSlotToToken();
         table.placeToken(0,1);
-        assertEquals(1,slotToToken[1][0]);
+        assertTrue(table.hasToken(0,1));
+        assertFalse(table.hasToken(0,2));
     }
 
     @Test
@@ -116,6 +125,55 @@ class TableTest {
         assertArrayEquals(new Object[]{0,1},a);
     }
 
+    @Test
+    void getPlayersFromSlots_ManyPlayers() {
+        Properties properties = new Properties();
+        properties.put("TableDelaySeconds", "0");
+        properties.put("ComputerPlayers", "200");
+        MockLogger logger = new MockLogger();
+        Config config = new Config(logger, properties);
+        Table table = new Table(new Env(logger, config, new MockUserInterface(), new MockUtil()));
+        table.placeToken(201, 3);
+        table.placeToken(64, 3);
+        table.placeToken(64, 5);
+        table.placeToken(0, 5);
+        table.placeToken(63, 7);
+        table.removeToken(0, 5);
+
+        assertEquals(Arrays.asList(64, 201), table.getPlayersFromSlots(new int[]{3, 5}));
+        assertTrue(table.hasToken(64, 5));
+        assertFalse(table.hasToken(0, 5));
+        assertFalse(table.hasToken(63, 3));
+    }
+
+    @Test
+    void setCount_TracksPlacedAndRemovedCards() {
+        Properties properties = new Properties();
+        properties.put("TableDelaySeconds", "0");
+        MockLogger logger = new MockLogger();
+        Config config = new Config(logger, properties);
+        Env env = new Env(logger, config, new MockUserInterface(), new UtilImpl(config));
+        Table table = new Table(env);
+        Random random = new Random(1);
+        List<Integer> deck = IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+        Collections.shuffle(deck, random);
+
+        for (int round = 0; round < 500; ++round) {
+            int slot = random.nextInt(config.tableSize);
+            if (table.slotToCard[slot] == null || table.slotToCard[slot] == -1)
+                table.placeCard(deck.remove(deck.size() - 1), slot);
+            else {
+                int card = table.slotToCard[slot];
+                table.removeCard(card, slot, new Player[0]);
+                deck.add(0, card);
+            }
+            List<Integer> cards = Arrays.stream(table.slotToCard).filter(card -> card != null && card != -1).collect(Collectors.toList());
+            int expected = env.util.findSets(cards, Integer.MAX_VALUE).size();
+            assertEquals(expected, table.setCount());
+            assertEquals(expected > 0, table.anySet());
+        }
+    }
+
     static class MockUserInterface implements UserInterface {
         @Override
         public void dispose() {}
@@ -159,9 +217,34 @@ class TableTest {
             return false;
         }
 
+        @Override
+        public int thirdCard(int first, int second) {
+            return -1;
+        }
+
         @Override
         public List<int[]> findSets(List<Integer> deck, int count) {
-            return null;
+            return new ArrayList<>();
+        }
+
+        @Override
+        public List<int[]> findSetsParallel(List<Integer> deck, int count) {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public List<int[]> findSets(int[] cards, int length, int count) {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public Stream<int[]> streamSets(int[] cards, int length) {
+            return Stream.empty();
+        }
+
+        @Override
+        public Stream<int[]> streamSets(List<Integer> deck) {
+            return Stream.empty();
         }
 
         @Override
@@ -0,0 +1,70 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimerWheelTest {
+
+    private TimerWheel wheel;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new TimerWheel(1, 16, "test-wheel");
+    }
+
+    @AfterEach
+    void tearDown() {
+        wheel.close();
+    }
+
+    @Test
+    void schedule_RunsInDeadlineOrder() throws InterruptedException {
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        long now = System.currentTimeMillis();
+        wheel.schedule(() -> { order.add(3); done.countDown(); }, now + 60); //a later round of the wheel
+        wheel.schedule(() -> { order.add(1); done.countDown(); }, now + 5);
+        wheel.schedule(() -> { order.add(2); done.countDown(); }, now + 30);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(1, 2, 3), order);
+    }
+
+    @Test
+    void schedule_NotBeforeTheDeadline() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 50;
+        long[] ran = new long[1];
+        CountDownLatch done = new CountDownLatch(1);
+        wheel.schedule(() -> { ran[0] = System.currentTimeMillis(); done.countDown(); }, deadline);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(ran[0] >= deadline);
+    }
+
+    @Test
+    void schedule_RunsAfterAFailingTask() throws InterruptedException {
+        CountDownLatch after = new CountDownLatch(1);
+        long now = System.currentTimeMillis();
+        wheel.schedule(() -> { throw new IllegalStateException("failing task"); }, now + 5);
+        wheel.schedule(after::countDown, now + 20);
+        assertTrue(after.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void cancel_TaskDoesNotRun() throws InterruptedException {
+        CountDownLatch cancelled = new CountDownLatch(1);
+        CountDownLatch after = new CountDownLatch(1);
+        long now = System.currentTimeMillis();
+        wheel.schedule(cancelled::countDown, now + 10).cancel();
+        wheel.schedule(after::countDown, now + 20);
+        assertTrue(after.await(5, TimeUnit.SECONDS));
+        assertEquals(1, cancelled.getCount());
+    }
+}